@@ -0,0 +1,44 @@
+#!/bin/bash
+set -eo pipefail
+
+# 比較兩份 JMH JSON 結果，任何基準退步超過門檻時以非零狀態結束
+# 用法: ./jmh-compare.sh baseline.json target/jmh-result.json [門檻百分比，預設 10]
+
+if [ $# -lt 2 ]; then
+  echo "用法: $0 <baseline.json> <current.json> [threshold-percent]"
+  exit 2
+fi
+
+BASELINE=$1
+CURRENT=$2
+THRESHOLD=${3:-10}
+
+# 以基準名稱加參數作為比對鍵；吞吐量越高越好，其餘模式越低越好
+# 先取得 jq 的輸出並檢查狀態，檔案不存在或格式不符時不可被視為沒有退步
+if ! REPORT=$(jq -n -r --slurpfile base "$BASELINE" --slurpfile cur "$CURRENT" --argjson threshold "$THRESHOLD" '
+  def key: .benchmark + ((.params // {}) | to_entries | map("," + .key + "=" + .value) | join(""));
+  ($base[0] | map({(key): .}) | add) as $b
+  | $cur[0][]
+  | key as $k
+  | select($b[$k] != null)
+  | ($b[$k].primaryMetric.score) as $old
+  | (.primaryMetric.score) as $new
+  | (if .mode == "thrpt" then ($old - $new) / $old else ($new - $old) / $old end * 100) as $regression
+  | "\(if $regression > $threshold then "REGRESSION" else "ok" end)\t\($regression * 100 | round / 100)%\t\($k)\t\($old) -> \($new) \(.primaryMetric.scoreUnit)"
+'); then
+  echo "無法比較 $BASELINE 與 $CURRENT" >&2
+  exit 2
+fi
+
+if [ -z "$REPORT" ]; then
+  echo "兩份結果沒有相同的基準可比較" >&2
+  exit 2
+fi
+
+echo "$REPORT"
+if grep -q "^REGRESSION" <<< "$REPORT"; then
+  echo "發現效能退步超過 ${THRESHOLD}%"
+  exit 1
+fi
+
+echo "沒有超過 ${THRESHOLD}% 的效能退步"
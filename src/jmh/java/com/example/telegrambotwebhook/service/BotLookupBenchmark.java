@@ -0,0 +1,143 @@
+package com.example.telegrambotwebhook.service;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.telegrambotwebhook.config.CacheConfig;
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.kafka.BotStateReplayer;
+import com.example.telegrambotwebhook.repository.BotRepository;
+import com.example.telegrambotwebhook.routing.BotRoute;
+import com.example.telegrambotwebhook.service.impl.BotRoutingTableImpl;
+import com.example.telegrambotwebhook.service.impl.BotServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 比較經由 @Cacheable 代理查詢 Caffeine 快取的 BotServiceImpl.getBotByUsername 與記憶體路由表的查詢成本
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class BotLookupBenchmark {
+
+    @Param({"100", "10000"})
+    public int botCount;
+
+    private AnnotationConfigApplicationContext context;
+    private BotService botService;
+    private BotRoutingTable botRoutingTable;
+    private String[] usernames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<BotEntity> bots = IntStream.range(0, botCount)
+                .mapToObj(i -> BotEntity.builder()
+                        .id((long) i)
+                        .username("bot_" + i)
+                        .token(i + ":token")
+                        .enable(true)
+                        .version(0L)
+                        .build())
+                .toList();
+        usernames = bots.stream().map(BotEntity::getUsername).toArray(String[]::new);
+
+        BotRepository botRepository = mock(BotRepository.class);
+        when(botRepository.findByEnableTrue()).thenReturn(bots);
+        when(botRepository.findByUsername(anyString())).thenAnswer(invocation -> {
+            String username = invocation.getArgument(0);
+            return Optional.of(bots.get(Integer.parseInt(username.substring("bot_".length()))));
+        });
+
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(BotRepository.class, () -> botRepository);
+        context.register(LookupConfig.class);
+        context.refresh();
+        botService = context.getBean(BotService.class);
+        botRoutingTable = context.getBean(BotRoutingTable.class);
+
+        // 預先載入快取，只量測命中的情況
+        for (String username : usernames) {
+            botService.getBotByUsername(username);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public Optional<BotEntity> cachedGetBotByUsername(Cursor cursor) {
+        return botService.getBotByUsername(nextUsername(cursor));
+    }
+
+    @Benchmark
+    public BotRoute routingTableLookup(Cursor cursor) {
+        return botRoutingTable.lookup(nextUsername(cursor));
+    }
+
+    @Benchmark
+    public BotRoute routingTableMiss() {
+        return botRoutingTable.lookup("unknown_bot");
+    }
+
+    private String nextUsername(Cursor cursor) {
+        cursor.next = cursor.next + 1 == usernames.length ? 0 : cursor.next + 1;
+        return usernames[cursor.next];
+    }
+
+    @Configuration
+    @EnableCaching
+    @Import(CacheConfig.class)
+    static class LookupConfig {
+
+        @Bean
+        BotRoutingTable botRoutingTable(BotRepository botRepository, ObjectProvider<BotStateReplayer> botStateReplayer) {
+            return new BotRoutingTableImpl(botRepository, botStateReplayer, new SimpleMeterRegistry());
+        }
+
+        @Bean
+        BotService botService(BotRepository botRepository, BotRoutingTable botRoutingTable, CacheManager cacheManager) {
+            return new BotServiceImpl(botRepository, mock(BotManager.class), mock(TelegramBotRegistry.class),
+                    botRoutingTable, cacheManager, mock(JdbcTemplate.class), mock(BotChangeOutbox.class),
+                    mock(TransactionTemplate.class));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.telegrambotwebhook.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.telegrambotwebhook.command.CommandDispatcher;
+import com.example.telegrambotwebhook.command.handler.EchoMessageHandler;
+import com.example.telegrambotwebhook.command.handler.StartCommandHandler;
+import com.example.telegrambotwebhook.update.UpdateEnvelope;
+import com.example.telegrambotwebhook.update.UpdateEnvelopeParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * TelegramBot 的建立成本與經由指令表處理文字訊息的成本；關閉 TelegramBot 的日誌，只量測處理邏輯本身
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TelegramBotBenchmark {
+
+    private static final String TEXT_MESSAGE = """
+            {"update_id":123456789,"message":{"message_id":1024,\
+            "from":{"id":987654321,"is_bot":false,"first_name":"Alice","username":"alice"},\
+            "chat":{"id":987654321,"first_name":"Alice","username":"alice","type":"private"},\
+            "date":1700000000,"text":"hello"}}""";
+
+    private static final String GROUP_COMMAND = """
+            {"update_id":123456790,"message":{"message_id":1025,\
+            "from":{"id":987654321,"is_bot":false,"first_name":"Alice","username":"alice"},\
+            "chat":{"id":-100123456789,"title":"Group","type":"supergroup"},\
+            "date":1700000000,"text":"/start@benchmark_bot deep-link"}}""";
+
+    private TelegramBot bot;
+    private UpdateEnvelopeParser parser;
+    private byte[] payload;
+    private UpdateEnvelope envelope;
+    private UpdateEnvelope commandEnvelope;
+    private Update update;
+
+    @Setup
+    public void setUp() throws IOException {
+        ((Logger) LoggerFactory.getLogger(TelegramBot.class)).setLevel(Level.WARN);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        parser = new UpdateEnvelopeParser(objectMapper);
+        payload = TEXT_MESSAGE.getBytes(StandardCharsets.UTF_8);
+        envelope = parser.parse(payload);
+        commandEnvelope = parser.parse(GROUP_COMMAND.getBytes(StandardCharsets.UTF_8));
+        update = objectMapper.readValue(payload, Update.class);
+        bot = newBot();
+    }
+
+    @Benchmark
+    public TelegramBot construct() {
+        return newBot();
+    }
+
+    @Benchmark
+    public BotApiMethod<?> onWebhookUpdateReceived() {
+        return bot.onWebhookUpdateReceived(update);
+    }
+
+    /**
+     * 文字訊息經由路由欄位直接進入指令表，不反序列化完整 Update
+     */
+    @Benchmark
+    public BotApiMethod<?> onUpdateText() {
+        return bot.onUpdate(envelope);
+    }
+
+    @Benchmark
+    public BotApiMethod<?> onUpdateGroupCommand() {
+        return bot.onUpdate(commandEnvelope);
+    }
+
+    @Benchmark
+    public BotApiMethod<?> parseAndHandle() throws IOException {
+        return bot.onUpdate(parser.parse(payload));
+    }
+
+    private static TelegramBot newBot() {
+        CommandDispatcher dispatcher = new CommandDispatcher("benchmark_bot",
+                List.of(new StartCommandHandler()), List.of(new EchoMessageHandler()));
+        return new TelegramBot(new DefaultBotOptions(), "123456:benchmark-token", "benchmark_bot",
+                "/webhook/benchmark_bot", null, dispatcher, null, Runnable::run);
+    }
+}
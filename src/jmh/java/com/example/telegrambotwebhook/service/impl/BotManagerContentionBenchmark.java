@@ -0,0 +1,94 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.repository.BotRepository;
+import com.example.telegrambotwebhook.repository.WebhookRegistrationRepository;
+import com.example.telegrambotwebhook.service.ClusterCoordinator;
+import com.example.telegrambotwebhook.service.TelegramBot;
+import com.example.telegrambotwebhook.service.TelegramBotRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 同時註冊 webhook 與查詢註冊狀態時 BotManagerImpl 的鎖競爭；Bot API 呼叫以不做事的 mock 取代
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BotManagerContentionBenchmark {
+
+    private static final int BOT_COUNT = 1024;
+
+    private BotManagerImpl botManager;
+    private BotEntity[] bots;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(BotManagerImpl.class)).setLevel(Level.WARN);
+
+        TelegramBotConfig config = new TelegramBotConfig();
+        config.setWebhookDomain("https://bench.example.com");
+        config.setRegisterPath("/webhook");
+
+        TelegramBotRegistry registry = mock(TelegramBotRegistry.class);
+        when(registry.getBot(any(BotEntity.class))).thenReturn(mock(TelegramBot.class));
+        ClusterCoordinator clusterCoordinator = mock(ClusterCoordinator.class);
+        when(clusterCoordinator.isWebhookOwner()).thenReturn(true);
+
+        botManager = new BotManagerImpl(config, mock(BotRepository.class), registry, clusterCoordinator,
+                mock(WebhookRegistrationRepository.class), new SimpleMeterRegistry());
+
+        bots = new BotEntity[BOT_COUNT];
+        for (int i = 0; i < BOT_COUNT; i++) {
+            bots[i] = BotEntity.builder().id((long) i).username("bot_" + i).token(i + ":token").enable(true).build();
+            botManager.registerWebhook(bots[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        BotEntity next(BotEntity[] bots) {
+            next = (next + 1) & (BOT_COUNT - 1);
+            return bots[next];
+        }
+    }
+
+    @Benchmark
+    @Group("registerAndQuery")
+    @GroupThreads(2)
+    public boolean register(Cursor cursor) {
+        return botManager.registerWebhook(cursor.next(bots));
+    }
+
+    @Benchmark
+    @Group("registerAndQuery")
+    @GroupThreads(6)
+    public boolean isWebhookRegistered(Cursor cursor) {
+        return botManager.isWebhookRegistered(cursor.next(bots).getUsername());
+    }
+}
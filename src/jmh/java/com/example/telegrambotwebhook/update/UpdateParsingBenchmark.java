@@ -0,0 +1,74 @@
+package com.example.telegrambotwebhook.update;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * 比較 WebhookController 原本的完整 Update 綁定與串流解析路由欄位的成本
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpdateParsingBenchmark {
+
+    private static final String TEXT_MESSAGE = """
+            {"update_id":123456789,"message":{"message_id":1024,\
+            "from":{"id":987654321,"is_bot":false,"first_name":"Alice","last_name":"Chen",\
+            "username":"alice","language_code":"zh-hant"},\
+            "chat":{"id":987654321,"first_name":"Alice","last_name":"Chen","username":"alice","type":"private"},\
+            "date":1700000000,"text":"/start hello"}}""";
+
+    private static final String CALLBACK_QUERY = """
+            {"update_id":123456790,"callback_query":{"id":"4382bfdwdsb323b2d9",\
+            "from":{"id":987654321,"is_bot":false,"first_name":"Alice","username":"alice"},\
+            "message":{"message_id":1025,"date":1700000001,\
+            "chat":{"id":-100123456789,"title":"Group","type":"supergroup"},"text":"Pick one",\
+            "reply_markup":{"inline_keyboard":[[{"text":"A","callback_data":"a"},{"text":"B","callback_data":"b"}]]}},\
+            "chat_instance":"-7093420945","data":"a"}}""";
+
+    @Param({"text", "callback"})
+    public String payloadType;
+
+    private ObjectMapper objectMapper;
+    private UpdateEnvelopeParser parser;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        parser = new UpdateEnvelopeParser(objectMapper);
+        payload = ("text".equals(payloadType) ? TEXT_MESSAGE : CALLBACK_QUERY).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Update fullBinding() throws IOException {
+        return objectMapper.readValue(payload, Update.class);
+    }
+
+    @Benchmark
+    public UpdateEnvelope routingFieldsOnly() throws IOException {
+        return parser.parse(payload);
+    }
+
+    @Benchmark
+    public Update routingFieldsThenMaterialize() throws IOException {
+        return parser.parse(payload).getUpdate();
+    }
+}
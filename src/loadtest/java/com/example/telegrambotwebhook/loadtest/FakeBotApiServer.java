@@ -0,0 +1,247 @@
+package com.example.telegrambotwebhook.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 可嵌入的 Telegram Bot API 模擬伺服器，實作 setWebhook、deleteWebhook、getWebhookInfo、sendMessage 與 getMe。
+ * 路徑格式與官方相同 (/bot{token}/{method})，應用程式的 telegram-bot.api-base-url 設為 http://host:port/bot 即可。
+ * 可設定固定延遲、隨機抖動與 429 注入；sendMessage 的文字中若帶有產生器加入的時間戳記，會記錄端對端延遲。
+ */
+@Slf4j
+public class FakeBotApiServer implements AutoCloseable {
+
+    private static final Pattern PATH = Pattern.compile("^/bot([^/]+)/([A-Za-z]+)$");
+    private static final Pattern SENT_AT = Pattern.compile("#t=(\\d+)");
+
+    /**
+     * @param port 監聽埠號
+     * @param latencyMs 每個請求的固定延遲
+     * @param jitterMs 額外的隨機延遲上限
+     * @param tooManyRequestsRate 回傳 429 的機率，0 到 1
+     * @param retryAfterSeconds 429 回應中的 retry_after
+     */
+    public record Options(int port, long latencyMs, long jitterMs, double tooManyRequestsRate, int retryAfterSeconds) {
+    }
+
+    private final Options options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, String> webhooks = new ConcurrentHashMap<>();
+    private final AtomicLong messageIds = new AtomicLong();
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong throttledRequests = new AtomicLong();
+    private final LatencyHistogram endToEndLatency = new LatencyHistogram();
+    private HttpServer server;
+
+    public FakeBotApiServer(Options options) {
+        this.options = options;
+    }
+
+    public FakeBotApiServer start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(options.port()), 1024);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        log.info("Fake Bot API listening on port {}", server.getAddress().getPort());
+        return this;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getSentMessages() {
+        return sentMessages.get();
+    }
+
+    public long getThrottledRequests() {
+        return throttledRequests.get();
+    }
+
+    public int getWebhookCount() {
+        return webhooks.size();
+    }
+
+    public LatencyHistogram getEndToEndLatency() {
+        return endToEndLatency;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+        executor.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Matcher matcher = PATH.matcher(exchange.getRequestURI().getPath());
+            if (!matcher.matches()) {
+                respond(exchange, 404, error(404, "Not Found"));
+                return;
+            }
+
+            String token = matcher.group(1);
+            String method = matcher.group(2);
+            Map<String, String> params = params(exchange);
+
+            simulateLatency();
+            if (options.tooManyRequestsRate() > 0 && ThreadLocalRandom.current().nextDouble() < options.tooManyRequestsRate()) {
+                throttledRequests.incrementAndGet();
+                ObjectNode body = error(429, "Too Many Requests: retry after " + options.retryAfterSeconds());
+                body.putObject("parameters").put("retry_after", options.retryAfterSeconds());
+                respond(exchange, 429, body);
+                return;
+            }
+
+            switch (method) {
+                case "setWebhook" -> {
+                    webhooks.put(token, params.getOrDefault("url", ""));
+                    respond(exchange, 200, ok().put("result", true).put("description", "Webhook was set"));
+                }
+                case "deleteWebhook" -> {
+                    webhooks.remove(token);
+                    respond(exchange, 200, ok().put("result", true).put("description", "Webhook was deleted"));
+                }
+                case "getWebhookInfo" -> {
+                    ObjectNode body = ok();
+                    body.putObject("result")
+                            .put("url", webhooks.getOrDefault(token, ""))
+                            .put("has_custom_certificate", false)
+                            .put("pending_update_count", 0);
+                    respond(exchange, 200, body);
+                }
+                case "getMe" -> {
+                    ObjectNode body = ok();
+                    body.putObject("result")
+                            .put("id", Math.abs((long) token.hashCode()))
+                            .put("is_bot", true)
+                            .put("first_name", "LoadTest")
+                            .put("username", "loadtest_bot");
+                    respond(exchange, 200, body);
+                }
+                case "sendMessage" -> respond(exchange, 200, sendMessage(params));
+                default -> respond(exchange, 404, error(404, "Not Found: method " + method + " not found"));
+            }
+        } catch (Exception e) {
+            log.warn("Fake Bot API request failed: {}", e.getMessage());
+        }
+    }
+
+    private ObjectNode sendMessage(Map<String, String> params) {
+        sentMessages.incrementAndGet();
+
+        String text = params.getOrDefault("text", "");
+        Matcher sentAt = SENT_AT.matcher(text);
+        if (sentAt.find()) {
+            long sentAtMicros = Long.parseLong(sentAt.group(1));
+            endToEndLatency.recordMicros(nowMicros() - sentAtMicros);
+        }
+
+        long chatId = Long.parseLong(params.getOrDefault("chat_id", "0"));
+        ObjectNode body = ok();
+        ObjectNode message = body.putObject("result")
+                .put("message_id", messageIds.incrementAndGet())
+                .put("date", Instant.now().getEpochSecond())
+                .put("text", text);
+        message.putObject("chat")
+                .put("id", chatId)
+                .put("type", chatId < 0 ? "supergroup" : "private");
+        return body;
+    }
+
+    private void simulateLatency() throws InterruptedException {
+        long delay = options.latencyMs();
+        if (options.jitterMs() > 0) {
+            delay += ThreadLocalRandom.current().nextLong(options.jitterMs() + 1);
+        }
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+    /**
+     * 同時接受 JSON、表單與查詢字串參數
+     */
+    private Map<String, String> params(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseQuery(exchange.getRequestURI().getRawQuery(), params);
+
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        if (body.length == 0) {
+            return params;
+        }
+
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.contains("json")) {
+            JsonNode json = objectMapper.readTree(body);
+            json.fields().forEachRemaining(field -> params.put(field.getKey(), field.getValue().asText()));
+        } else {
+            parseQuery(new String(body, StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseQuery(String query, Map<String, String> params) {
+        if (query == null || query.isEmpty()) {
+            return;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private ObjectNode ok() {
+        return objectMapper.createObjectNode().put("ok", true);
+    }
+
+    private ObjectNode error(int code, String description) {
+        return objectMapper.createObjectNode()
+                .put("ok", false)
+                .put("error_code", code)
+                .put("description", description);
+    }
+
+    private void respond(HttpExchange exchange, int status, ObjectNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static long nowMicros() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.telegrambotwebhook.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定大小、可多執行緒寫入的對數直方圖，以微秒記錄延遲，百分位數誤差在 2% 以內
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR_LIMIT + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordMicros(long micros) {
+        long value = Math.max(0L, micros);
+        counts.incrementAndGet(indexOf(value));
+        total.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    public long maxMicros() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile 0 到 100 之間的百分位數
+     * @return 對應的延遲 (微秒)
+     */
+    public long percentileMicros(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0L;
+        }
+
+        long target = Math.max(1L, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(valueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int top = (int) (value >>> shift);
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    private static long valueOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int offset = index - LINEAR_LIMIT;
+        int exponent = offset / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        long top = offset % SUB_BUCKETS + SUB_BUCKETS;
+        // 回傳區間上界，避免低估尾端延遲
+        return ((top + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
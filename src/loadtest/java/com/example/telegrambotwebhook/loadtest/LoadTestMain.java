@@ -0,0 +1,135 @@
+package com.example.telegrambotwebhook.loadtest;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 壓力測試進入點：啟動模擬 Bot API (可選)、建立機器人 (可選)、送出更新，最後輸出吞吐量與延遲百分位數。
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--target=http://localhost --bots=200 --requests=200000"
+ * </pre>
+ *
+ * 參數 (--key=value)：target、bots、chats、requests、concurrency、bot-prefix、create-bots、
+ * fake-api-port (0 表示不啟動)、latency-ms、jitter-ms、rate-429、retry-after、drain-seconds
+ */
+@Slf4j
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> params = parse(args);
+
+        WebhookLoadGenerator.Options generatorOptions = new WebhookLoadGenerator.Options(
+                URI.create(params.getOrDefault("target", "http://localhost")),
+                params.getOrDefault("bot-prefix", "loadbot_"),
+                Integer.parseInt(params.getOrDefault("bots", "100")),
+                Integer.parseInt(params.getOrDefault("chats", "1000")),
+                Long.parseLong(params.getOrDefault("requests", "100000")),
+                Integer.parseInt(params.getOrDefault("concurrency", "256")));
+
+        int fakeApiPort = Integer.parseInt(params.getOrDefault("fake-api-port", "8081"));
+        FakeBotApiServer fakeApi = null;
+        if (fakeApiPort > 0) {
+            fakeApi = new FakeBotApiServer(new FakeBotApiServer.Options(
+                    fakeApiPort,
+                    Long.parseLong(params.getOrDefault("latency-ms", "20")),
+                    Long.parseLong(params.getOrDefault("jitter-ms", "10")),
+                    Double.parseDouble(params.getOrDefault("rate-429", "0")),
+                    Integer.parseInt(params.getOrDefault("retry-after", "1")))).start();
+        }
+
+        try {
+            WebhookLoadGenerator generator = new WebhookLoadGenerator(generatorOptions);
+            if (Boolean.parseBoolean(params.getOrDefault("create-bots", "false"))) {
+                generator.createBots();
+                // 等待各節點套用機器人變更通知
+                Thread.sleep(3000);
+            }
+
+            WebhookLoadGenerator.Result result = generator.run();
+            report(result);
+
+            if (fakeApi != null) {
+                awaitReplies(fakeApi, Long.parseLong(params.getOrDefault("drain-seconds", "30")));
+                reportEndToEnd(fakeApi);
+            }
+        } finally {
+            if (fakeApi != null) {
+                fakeApi.close();
+            }
+        }
+    }
+
+    /**
+     * 非同步模式下回覆會晚於 webhook 回應送達，等待送出數量不再增加
+     */
+    private static void awaitReplies(FakeBotApiServer fakeApi, long drainSeconds) throws InterruptedException {
+        long deadline = System.nanoTime() + drainSeconds * 1_000_000_000L;
+        long previous = -1;
+        while (System.nanoTime() < deadline) {
+            long sent = fakeApi.getSentMessages();
+            if (sent == previous) {
+                return;
+            }
+            previous = sent;
+            Thread.sleep(2000);
+        }
+    }
+
+    private static void report(WebhookLoadGenerator.Result result) {
+        LatencyHistogram latency = result.latency();
+        System.out.printf("""
+
+                ==== Webhook 回應 ====
+                requests     %d in %.1fs
+                throughput   %.1f req/s
+                status       %s
+                errors       %d
+                latency p50  %.2f ms
+                latency p99  %.2f ms
+                latency p999 %.2f ms
+                latency max  %.2f ms
+                """,
+                result.requests(), result.elapsed().toMillis() / 1000.0, result.throughput(),
+                result.statusCounts(), result.errors(),
+                latency.percentileMicros(50) / 1000.0, latency.percentileMicros(99) / 1000.0,
+                latency.percentileMicros(99.9) / 1000.0, latency.maxMicros() / 1000.0);
+    }
+
+    private static void reportEndToEnd(FakeBotApiServer fakeApi) {
+        LatencyHistogram latency = fakeApi.getEndToEndLatency();
+        System.out.printf("""
+
+                ==== 端對端 (更新送出 → sendMessage 抵達) ====
+                replies      %d
+                throttled    %d (429)
+                webhooks     %d
+                latency p50  %.2f ms
+                latency p99  %.2f ms
+                latency p999 %.2f ms
+                latency max  %.2f ms
+                """,
+                latency.count(), fakeApi.getThrottledRequests(), fakeApi.getWebhookCount(),
+                latency.percentileMicros(50) / 1000.0, latency.percentileMicros(99) / 1000.0,
+                latency.percentileMicros(99.9) / 1000.0, latency.maxMicros() / 1000.0);
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> params = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                params.put(arg.substring(2), "true");
+            } else {
+                params.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        log.debug("Load test parameters: {}", params);
+        return params;
+    }
+}
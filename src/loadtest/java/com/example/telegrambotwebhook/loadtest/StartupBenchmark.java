@@ -0,0 +1,153 @@
+package com.example.telegrambotwebhook.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 啟動時間基準：重複啟動應用程式，量測從建立行程到第一個 webhook 回應 200 的時間。
+ * 路由表載入前 webhook 回應 404，因此量到的是節點真正可以服務更新的時間，而不只是 context 啟動完成。
+ *
+ * <pre>
+ * # 一般啟動
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.main=com.example.telegrambotwebhook.loadtest.StartupBenchmark \
+ *     -Dloadtest.args="--jar=target/TelegramBotWebhook-0.0.1-SNAPSHOT.jar"
+ * # AOT 與 CDS (jar 需以 -Pfast-startup 建置並解壓，app.jsa 由訓練啟動產生)
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.main=com.example.telegrambotwebhook.loadtest.StartupBenchmark \
+ *     -Dloadtest.args="--jar=application/app.jar --jvm-args=-XX:SharedArchiveFile=app.jsa,-Dspring.aot.enabled=true"
+ * </pre>
+ *
+ * 參數 (--key=value)：jar、java、jvm-args (以逗號分隔)、app-args (以逗號分隔)、runs、port、bot、
+ * fake-api-port (0 表示不啟動)、timeout-seconds、log-dir
+ */
+@Slf4j
+public class StartupBenchmark {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> params = LoadTestMain.parse(args);
+        String jar = params.get("jar");
+        if (jar == null) {
+            throw new IllegalArgumentException("--jar is required");
+        }
+
+        int runs = Integer.parseInt(params.getOrDefault("runs", "5"));
+        int port = Integer.parseInt(params.getOrDefault("port", "18080"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(params.getOrDefault("timeout-seconds", "120")));
+        Path logDir = Path.of(params.getOrDefault("log-dir", "target/startup-benchmark"));
+        Files.createDirectories(logDir);
+
+        int fakeApiPort = Integer.parseInt(params.getOrDefault("fake-api-port", "8081"));
+        FakeBotApiServer fakeApi = null;
+        if (fakeApiPort > 0) {
+            fakeApi = new FakeBotApiServer(new FakeBotApiServer.Options(fakeApiPort, 0, 0, 0, 1)).start();
+        }
+
+        // CDS 封存記錄的是相對於工作目錄的 classpath，在 jar 所在的目錄啟動
+        File jarFile = new File(jar).getAbsoluteFile();
+        List<String> command = new ArrayList<>();
+        command.add(params.getOrDefault("java", "java"));
+        command.addAll(split(params.get("jvm-args")));
+        command.add("-jar");
+        command.add(jarFile.getName());
+        command.add("--server.port=" + port);
+        if (fakeApi != null) {
+            command.add("--telegram-bot.api-base-url=http://localhost:" + fakeApi.getPort() + "/bot");
+        }
+        command.addAll(split(params.get("app-args")));
+        log.info("Startup command: {}", command);
+
+        URI webhook = URI.create("http://localhost:" + port + "/webhook/" + params.getOrDefault("bot", "loadbot_0"));
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        long[] millis = new long[runs];
+        try {
+            for (int run = 0; run < runs; run++) {
+                ProcessBuilder builder = new ProcessBuilder(command)
+                        .directory(jarFile.getParentFile())
+                        .redirectErrorStream(true)
+                        .redirectOutput(logDir.resolve("run-" + run + ".log").toFile());
+                millis[run] = measure(builder, client, webhook, timeout);
+                System.out.printf("run %d: first webhook served after %d ms%n", run + 1, millis[run]);
+            }
+        } finally {
+            if (fakeApi != null) {
+                fakeApi.close();
+            }
+        }
+
+        Arrays.sort(millis);
+        System.out.printf("""
+
+                ==== 啟動到第一個 webhook 回應 ====
+                runs         %d
+                min          %d ms
+                median       %d ms
+                max          %d ms
+                """, runs, millis[0], millis[runs / 2], millis[runs - 1]);
+    }
+
+    private static long measure(ProcessBuilder builder, HttpClient client, URI webhook, Duration timeout)
+            throws IOException, InterruptedException {
+        long startedAt = System.nanoTime();
+        Process process = builder.start();
+        try {
+            long deadline = startedAt + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with status " + process.exitValue()
+                            + " before serving a webhook, see " + builder.redirectOutput().file());
+                }
+                if (served(client, webhook)) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                }
+                Thread.sleep(POLL_INTERVAL);
+            }
+            throw new IllegalStateException("No webhook served within " + timeout.toSeconds() + "s");
+        } finally {
+            process.destroy();
+            if (!process.waitFor(60, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static boolean served(HttpClient client, URI webhook) throws InterruptedException {
+        long updateId = System.nanoTime() & Integer.MAX_VALUE;
+        String update = """
+                {"update_id":%d,"message":{"message_id":%d,\
+                "from":{"id":1,"is_bot":false,"first_name":"Startup"},\
+                "chat":{"id":1,"first_name":"Startup","type":"private"},"date":%d,"text":"/start"}}""".formatted(
+                updateId, updateId, System.currentTimeMillis() / 1000);
+        HttpRequest request = HttpRequest.newBuilder(webhook)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(5))
+                .POST(HttpRequest.BodyPublishers.ofString(update))
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            // 尚未開始監聽
+            return false;
+        }
+    }
+
+    private static List<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(",")).map(String::trim).filter(arg -> !arg.isEmpty()).toList();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.telegrambotwebhook.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 對 /webhook/{botUsername} 送出模擬 Telegram 更新的壓力產生器。
+ * 更新平均分散在多個機器人與聊天室，約一成為群組訊息；文字中帶有送出時間，供模擬 Bot API 計算端對端延遲。
+ */
+@Slf4j
+public class WebhookLoadGenerator {
+
+    /**
+     * @param target 應用程式或 nginx 的位址，例如 http://localhost
+     * @param botPrefix 機器人使用者名稱前綴，實際名稱為 prefix + 序號
+     * @param bots 機器人數量
+     * @param chatsPerBot 每個機器人的聊天室數量
+     * @param requests 總請求數量
+     * @param concurrency 同時進行的請求數量
+     */
+    public record Options(URI target, String botPrefix, int bots, int chatsPerBot, long requests, int concurrency) {
+    }
+
+    /**
+     * @param requests 完成的請求數量
+     * @param statusCounts 依 HTTP 狀態碼統計的數量
+     * @param errors 連線失敗等未取得回應的數量
+     * @param elapsed 總耗時
+     * @param latency webhook 回應延遲
+     */
+    public record Result(long requests, Map<Integer, Long> statusCounts, long errors, Duration elapsed,
+                         LatencyHistogram latency) {
+
+        public double throughput() {
+            return requests / Math.max(1e-9, elapsed.toNanos() / 1e9);
+        }
+    }
+
+    private final Options options;
+    private final HttpClient httpClient;
+    private final AtomicInteger updateIds = new AtomicInteger(ThreadLocalRandom.current().nextInt(1, 1 << 20));
+
+    public WebhookLoadGenerator(Options options) {
+        this.options = options;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public String usernameOf(int bot) {
+        return options.botPrefix() + bot;
+    }
+
+    /**
+     * 建立壓力測試用的機器人，已存在的機器人會回傳錯誤並被忽略
+     */
+    public void createBots() throws InterruptedException {
+        log.info("Creating {} bots through {}", options.bots(), options.target());
+        // 透過批次 API 建立，每次最多 1000 筆
+        for (int from = 0; from < options.bots(); from += 1000) {
+            StringJoiner bots = new StringJoiner(",", "{\"bots\":[", "]}");
+            for (int i = from; i < Math.min(from + 1000, options.bots()); i++) {
+                bots.add("""
+                        {"username":"%s","token":"%d:loadtest","enable":true}""".formatted(usernameOf(i), 100000 + i));
+            }
+            HttpRequest request = HttpRequest.newBuilder(options.target().resolve("/api/bots/bulk"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(bots.toString()))
+                    .build();
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 300) {
+                    log.warn("Creating bots {}-{} returned {}", from, from + 999, response.statusCode());
+                }
+            } catch (java.io.IOException e) {
+                log.warn("Creating bots {}-{} failed: {}", from, from + 999, e.getMessage());
+            }
+        }
+    }
+
+    public Result run() throws InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        LongAdder errors = new LongAdder();
+        AtomicLong remaining = new AtomicLong(options.requests());
+
+        long start = System.nanoTime();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.concurrency(); i++) {
+                workers.submit(() -> {
+                    while (remaining.getAndDecrement() > 0) {
+                        sendOne(latency, statusCounts, errors);
+                    }
+                });
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Map<Integer, Long> counts = new TreeMap<>();
+        statusCounts.forEach((status, count) -> counts.put(status, count.sum()));
+        return new Result(options.requests(), counts, errors.sum(), elapsed, latency);
+    }
+
+    private void sendOne(LatencyHistogram latency, Map<Integer, LongAdder> statusCounts, LongAdder errors) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int bot = random.nextInt(options.bots());
+        int chat = random.nextInt(options.chatsPerBot());
+        boolean group = chat % 10 == 0;
+        long chatId = group ? -1_000_000_000_000L - chat : 10_000_000L + chat;
+
+        HttpRequest request = HttpRequest.newBuilder(options.target().resolve("/webhook/" + usernameOf(bot)))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(updateJson(chatId, group)))
+                .build();
+
+        long sentAt = System.nanoTime();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            latency.recordMicros((System.nanoTime() - sentAt) / 1_000);
+            statusCounts.computeIfAbsent(response.statusCode(), status -> new LongAdder()).increment();
+        } catch (java.io.IOException e) {
+            errors.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String updateJson(long chatId, boolean group) {
+        int updateId = updateIds.incrementAndGet();
+        String chat = group
+                ? """
+                {"id":%d,"title":"Load Group","type":"supergroup"}""".formatted(chatId)
+                : """
+                {"id":%d,"first_name":"Load","username":"load_%d","type":"private"}""".formatted(chatId, chatId);
+        return """
+                {"update_id":%d,"message":{"message_id":%d,\
+                "from":{"id":%d,"is_bot":false,"first_name":"Load","language_code":"zh-hant"},\
+                "chat":%s,"date":%d,"text":"load test message #t=%d"}}""".formatted(
+                updateId, updateId, Math.abs(chatId), chat, System.currentTimeMillis() / 1000,
+                FakeBotApiServer.nowMicros());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.telegrambotwebhook.command;
+
+import com.example.telegrambotwebhook.update.UpdateEnvelope;
+import com.example.telegrambotwebhook.update.UpdateType;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * 單一機器人預先編譯的指令表：指令以雜湊表查詢、更新種類以 EnumMap 查詢，
+ * 指令文字以逐字元掃描拆解，不使用正規表示式
+ */
+public final class CommandDispatcher {
+
+    private final String botUsername;
+    private final Map<String, CommandHandler> commands;
+    private final Map<UpdateType, UpdateHandler> updateHandlers;
+
+    public CommandDispatcher(String botUsername, Iterable<CommandHandler> commandHandlers,
+                             Iterable<UpdateHandler> updateHandlers) {
+        this.botUsername = botUsername;
+
+        Map<String, CommandHandler> commandTable = new HashMap<>();
+        for (CommandHandler handler : commandHandlers) {
+            commandTable.put(handler.getCommand().toLowerCase(Locale.ROOT), handler);
+        }
+        this.commands = Map.copyOf(commandTable);
+
+        Map<UpdateType, UpdateHandler> typeTable = new EnumMap<>(UpdateType.class);
+        for (UpdateHandler handler : updateHandlers) {
+            typeTable.put(handler.getType(), handler);
+        }
+        this.updateHandlers = typeTable;
+    }
+
+    /**
+     * 處理經由串流解析的更新
+     */
+    public BotApiMethod<?> dispatch(UpdateEnvelope envelope) {
+        return dispatch(new UpdateContext(botUsername, envelope.getType(), envelope.getChatId(), envelope.getText(),
+                null, "", envelope, null));
+    }
+
+    /**
+     * 處理已反序列化的 Update，目前只處理文字訊息
+     */
+    public BotApiMethod<?> dispatch(Update update) {
+        if (!update.hasMessage() || !update.getMessage().hasText()) {
+            return null;
+        }
+        return dispatch(new UpdateContext(botUsername, UpdateType.MESSAGE, update.getMessage().getChatId(),
+                update.getMessage().getText(), null, "", null, update));
+    }
+
+    public boolean hasCommand(String command) {
+        return commands.containsKey(command.toLowerCase(Locale.ROOT));
+    }
+
+    private BotApiMethod<?> dispatch(UpdateContext context) {
+        String text = context.text();
+        if (text != null && text.length() > 1 && text.charAt(0) == '/' && context.type().isMessageLike()) {
+            int end = 1;
+            int at = -1;
+            while (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+                if (at < 0 && text.charAt(end) == '@') {
+                    at = end;
+                }
+                end++;
+            }
+
+            // 群組中 /cmd@other_bot 是給其他機器人的指令
+            if (at >= 0 && !isAddressedToMe(text, at + 1, end)) {
+                return null;
+            }
+
+            String command = text.substring(1, at < 0 ? end : at).toLowerCase(Locale.ROOT);
+            CommandHandler handler = commands.get(command);
+            if (handler != null) {
+                return handler.handle(context.withCommand(command, text.substring(end).strip()));
+            }
+        }
+
+        UpdateHandler handler = updateHandlers.get(context.type());
+        return handler == null ? null : handler.handle(context);
+    }
+
+    private boolean isAddressedToMe(String text, int from, int to) {
+        return to - from == botUsername.length() && text.regionMatches(true, from, botUsername, 0, to - from);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.telegrambotwebhook.command;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * 依機器人的指令設定，從所有註冊為 Bean 的處理器編譯出該機器人的指令表
+ */
+@Slf4j
+@Component
+public class CommandDispatcherFactory {
+
+    private final List<CommandHandler> commandHandlers;
+    private final List<UpdateHandler> updateHandlers;
+
+    public CommandDispatcherFactory(List<CommandHandler> commandHandlers, List<UpdateHandler> updateHandlers) {
+        this.commandHandlers = commandHandlers;
+        this.updateHandlers = updateHandlers;
+        log.info("Registered commands: {}, update handlers: {}",
+                commandHandlers.stream().map(CommandHandler::getCommand).toList(),
+                updateHandlers.stream().map(UpdateHandler::getType).toList());
+    }
+
+    /**
+     * @param botUsername 機器人使用者名稱
+     * @param commands 以逗號分隔的啟用指令，未設定時啟用所有指令
+     * @return 該機器人的指令表
+     */
+    public CommandDispatcher create(String botUsername, String commands) {
+        if (!StringUtils.hasText(commands)) {
+            return new CommandDispatcher(botUsername, commandHandlers, updateHandlers);
+        }
+
+        Set<String> enabled = Arrays.stream(commands.split(","))
+                .map(command -> command.strip().replaceFirst("^/", "").toLowerCase(Locale.ROOT))
+                .filter(StringUtils::hasText)
+                .collect(Collectors.toSet());
+        List<CommandHandler> selected = commandHandlers.stream()
+                .filter(handler -> enabled.contains(handler.getCommand().toLowerCase(Locale.ROOT)))
+                .toList();
+        if (selected.size() < enabled.size()) {
+            log.warn("Bot {} enables unknown commands: {}", botUsername, commands);
+        }
+        return new CommandDispatcher(botUsername, selected, updateHandlers);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.telegrambotwebhook.command;
+
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+
+/**
+ * 斜線指令處理器，註冊為 Spring Bean 後即可被機器人使用；
+ * 機器人設定了 commands 時只會啟用名單內的指令
+ */
+public interface CommandHandler {
+    /**
+     * 指令名稱，不含斜線，例如 start
+     */
+    String getCommand();
+
+    /**
+     * 處理指令
+     *
+     * @param context 更新內容，command 與 arguments 已填入
+     * @return 回覆內容，不回覆時為 null
+     */
+    BotApiMethod<?> handle(UpdateContext context);
+}
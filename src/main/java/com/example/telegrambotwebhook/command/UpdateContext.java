@@ -0,0 +1,32 @@
+package com.example.telegrambotwebhook.command;
+
+import com.example.telegrambotwebhook.update.UpdateEnvelope;
+import com.example.telegrambotwebhook.update.UpdateType;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * 交給處理器的更新內容，指令與參數已預先拆開；完整的 Update 只在處理器需要時才反序列化
+ *
+ * @param botUsername 接收更新的機器人
+ * @param type 更新種類
+ * @param chatId 聊天室 ID，非訊息類更新為 0
+ * @param text 訊息文字，沒有文字時為 null
+ * @param command 指令名稱 (不含斜線與 @botname)，不是指令時為 null
+ * @param arguments 指令後的參數，沒有參數時為空字串
+ * @param envelope 更新的路由資訊，經由 onWebhookUpdateReceived 進入時為 null
+ * @param update 已反序列化的 Update，尚未反序列化時為 null
+ */
+public record UpdateContext(String botUsername, UpdateType type, long chatId, String text,
+                            String command, String arguments, UpdateEnvelope envelope, Update update) {
+
+    /**
+     * 取得完整的 Update，必要時才反序列化
+     */
+    public Update getUpdate() {
+        return update != null ? update : envelope.getUpdate();
+    }
+
+    UpdateContext withCommand(String command, String arguments) {
+        return new UpdateContext(botUsername, type, chatId, text, command, arguments, envelope, update);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.telegrambotwebhook.command;
+
+import com.example.telegrambotwebhook.update.UpdateType;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+
+/**
+ * 依更新種類處理的處理器，註冊為 Spring Bean 後套用到所有機器人；
+ * MESSAGE 種類的處理器也負責沒有對應指令的文字訊息
+ */
+public interface UpdateHandler {
+    /**
+     * 處理的更新種類
+     */
+    UpdateType getType();
+
+    /**
+     * 處理更新
+     *
+     * @param context 更新內容
+     * @return 回覆內容，不回覆時為 null
+     */
+    BotApiMethod<?> handle(UpdateContext context);
+}
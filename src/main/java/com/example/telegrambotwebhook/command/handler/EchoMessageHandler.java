@@ -0,0 +1,29 @@
+package com.example.telegrambotwebhook.command.handler;
+
+import com.example.telegrambotwebhook.command.UpdateContext;
+import com.example.telegrambotwebhook.command.UpdateHandler;
+import com.example.telegrambotwebhook.update.UpdateType;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+
+/**
+ * 沒有對應指令的文字訊息原樣回覆
+ */
+@Component
+public class EchoMessageHandler implements UpdateHandler {
+
+    @Override
+    public UpdateType getType() {
+        return UpdateType.MESSAGE;
+    }
+
+    @Override
+    public BotApiMethod<?> handle(UpdateContext context) {
+        if (context.text() == null) {
+            return null;
+        }
+        return new SendMessage(String.valueOf(context.chatId()),
+                "您發送給 " + context.botUsername() + " 的訊息: " + context.text());
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.telegrambotwebhook.command.handler;
+
+import com.example.telegrambotwebhook.command.CommandHandler;
+import com.example.telegrambotwebhook.command.UpdateContext;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+
+@Component
+public class StartCommandHandler implements CommandHandler {
+
+    @Override
+    public String getCommand() {
+        return "start";
+    }
+
+    @Override
+    public BotApiMethod<?> handle(UpdateContext context) {
+        return new SendMessage(String.valueOf(context.chatId()), "您好！歡迎使用 " + context.botUsername() + " Bot。");
+    }
+}
@@ -11,7 +11,8 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class CacheConfig {
 
-    public static final String BOT_CACHE = "botCache";
+    public static final String BOT_BY_USERNAME_CACHE = "botByUsername";
+    public static final String BOT_BY_ID_CACHE = "botById";
 
     @Bean
     public Caffeine<Object, Object> caffeineConfig() {
@@ -26,7 +27,7 @@ public class CacheConfig {
     public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
         cacheManager.setCaffeine(caffeine);
-        cacheManager.setCacheNames(List.of(BOT_CACHE));
+        cacheManager.setCacheNames(List.of(BOT_BY_USERNAME_CACHE, BOT_BY_ID_CACHE));
         return cacheManager;
     }
 }
@@ -2,59 +2,200 @@ package com.example.telegrambotwebhook.config;
 
 import java.util.HashMap;
 import java.util.Map;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 @Configuration
 public class KafkaConfig {
 
+    public static final String UPDATE_LISTENER_CONTAINER_FACTORY = "updateBatchListenerContainerFactory";
+    public static final String CLUSTER_EVENT_LISTENER_CONTAINER_FACTORY = "clusterEventListenerContainerFactory";
+    public static final String CLUSTER_EVENT_KAFKA_TEMPLATE = "clusterEventKafkaTemplate";
+    public static final String BOT_STATE_CONSUMER_FACTORY = "botStateConsumerFactory";
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
-    @Value("${spring.kafka.consumer.group-id}")
-    private String groupId;
+    @Value("${kafka.topic.update-ingest}")
+    private String updateIngestTopic;
+
+    @Value("${kafka.update-ingest.group-id}")
+    private String updateGroupId;
+
+    @Value("${kafka.update-ingest.partitions}")
+    private int updatePartitions;
+
+    @Value("${kafka.update-ingest.concurrency}")
+    private int updateConcurrency;
+
+    @Value("${kafka.update-ingest.max-poll-records}")
+    private int updateMaxPollRecords;
+
+    @Value("${kafka.topic.cluster-event}")
+    private String clusterEventTopic;
+
+    @Value("${kafka.cluster-event.partitions}")
+    private int clusterEventPartitions;
 
+    @Value("${kafka.cluster-event.linger-ms}")
+    private int clusterEventLingerMs;
+
+    @Value("${kafka.cluster-event.max-poll-records}")
+    private int clusterEventMaxPollRecords;
+
+    @Value("${kafka.topic.bot-state}")
+    private String botStateTopic;
+
+    @Value("${kafka.bot-state.partitions}")
+    private int botStatePartitions;
+
+    /**
+     * 叢集事件主題，以機器人 ID 為 key，同一機器人的事件落在同一分區
+     */
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public NewTopic clusterEventTopic() {
+        return TopicBuilder.name(clusterEventTopic)
+                .partitions(clusterEventPartitions)
+                .build();
+    }
+
+    @Bean
+    public ProducerFactory<String, byte[]> clusterEventProducerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        // 批次操作會在短時間內產生大量事件，稍微等待讓同一分區的事件合併壓縮後一次送出
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, clusterEventLingerMs);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    @Bean(CLUSTER_EVENT_KAFKA_TEMPLATE)
+    public KafkaTemplate<String, byte[]> clusterEventKafkaTemplate() {
+        return new KafkaTemplate<>(clusterEventProducerFactory());
+    }
+
+    /**
+     * 叢集事件的消費者，群組 ID 由 ClusterEventListener 依節點識別名稱指定，每個節點各自收到所有事件
+     */
+    @Bean
+    public ConsumerFactory<String, byte[]> clusterEventConsumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        // 新群組不從頭重播歷史事件，ClusterEventListener 會在首次分配分區時跳到節點啟動的時間點
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, clusterEventMaxPollRecords);
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
-    @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+    @Bean(CLUSTER_EVENT_LISTENER_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> clusterEventListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        factory.setConsumerFactory(clusterEventConsumerFactory());
+        factory.setBatchListener(true);
+        // 連重新載入都失敗時 (例如資料庫無法連線) 以退避重試整批，不略過事件而留下過期的路由與快取
+        ExponentialBackOff backOff = new ExponentialBackOff(1000L, 2.0);
+        backOff.setMaxInterval(30000L);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
         return factory;
     }
 
+    /**
+     * 機器人狀態的壓縮主題，以機器人 ID 為 key，只保留每個機器人的最新狀態，停用或刪除時寫入 tombstone
+     */
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
+    public NewTopic botStateTopic() {
+        return TopicBuilder.name(botStateTopic)
+                .partitions(botStatePartitions)
+                .compact()
+                .build();
+    }
+
+    /**
+     * 啟動時重播機器人狀態用的消費者，直接指定分區讀取，不加入群組也不提交 offset
+     */
+    @Bean(BOT_STATE_CONSUMER_FACTORY)
+    public ConsumerFactory<String, byte[]> botStateConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    /**
+     * Webhook 更新的寫入主題，分區數決定可平行處理的消費者數量
+     */
+    @Bean
+    public NewTopic updateIngestTopic() {
+        return TopicBuilder.name(updateIngestTopic)
+                .partitions(updatePartitions)
+                .build();
+    }
+
+    @Bean
+    public ProducerFactory<String, byte[]> updateProducerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        // 確認寫入所有副本後才回應 Telegram，避免節點重啟時遺失更新
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 1);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, byte[]> updateKafkaTemplate() {
+        return new KafkaTemplate<>(updateProducerFactory());
+    }
+
+    @Bean
+    public ConsumerFactory<String, byte[]> updateConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, updateGroupId);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, updateMaxPollRecords);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean(UPDATE_LISTENER_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> updateBatchListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(updateConsumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(updateConcurrency);
+        return factory;
     }
 }
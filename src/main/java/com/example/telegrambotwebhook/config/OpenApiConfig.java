@@ -3,20 +3,52 @@ package com.example.telegrambotwebhook.config;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 @Configuration
 public class OpenApiConfig {
 
+    private static final String SPRINGDOC_PACKAGE = "org.springdoc.";
+
     @Value("${telegram-bot.webhookDomain}")
     private String webhookDomain;
 
     @Bean
+    @Lazy
     public OpenAPI telegramBotOpenAPI() {
         return new OpenAPI()
                 .info(new Info()
                         .title("Telegram Bot API")
                         .description("Telegram Bot API"));
     }
+
+    /**
+     * springdoc 的元件延遲到第一次存取 API 文件或 Swagger UI 時才建立，不佔用啟動時間
+     */
+    @Bean
+    public static BeanFactoryPostProcessor lazySpringdocBeans() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (isSpringdoc(beanFactory, definition)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    private static boolean isSpringdoc(ConfigurableListableBeanFactory beanFactory, BeanDefinition definition) {
+        String className = definition.getBeanClassName();
+        if (className == null && definition.getFactoryBeanName() != null
+                && beanFactory.containsBeanDefinition(definition.getFactoryBeanName())) {
+            // @Bean 方法產生的元件以宣告它的設定類別判斷
+            className = beanFactory.getBeanDefinition(definition.getFactoryBeanName()).getBeanClassName();
+        }
+        return className != null && className.startsWith(SPRINGDOC_PACKAGE);
+    }
 }
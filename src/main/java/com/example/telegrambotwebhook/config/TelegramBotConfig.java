@@ -1,5 +1,7 @@
 package com.example.telegrambotwebhook.config;
 
+import java.util.ArrayList;
+import java.util.List;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -13,4 +15,168 @@ public class TelegramBotConfig {
 
     private String webhookDomain;
     private String registerPath;
+    private String apiBaseUrl;
+    private Ingestion ingestion = new Ingestion();
+    private Outbound outbound = new Outbound();
+    private Registration registration = new Registration();
+    private Cluster cluster = new Cluster();
+    private Metrics metrics = new Metrics();
+    private Dedup dedup = new Dedup();
+    private Transport transport = new Transport();
+    private Routing routing = new Routing();
+    private Outbox outbox = new Outbox();
+    private Shutdown shutdown = new Shutdown();
+
+    public enum IngestionMode {
+        /**
+         * 在請求執行緒上處理，並透過 webhook 回應直接回覆
+         */
+        SYNC,
+        /**
+         * 立即回應 Telegram，於背景工作佇列處理並透過 Bot API 回覆
+         */
+        ASYNC,
+        /**
+         * 立即將原始更新寫入 Kafka，由批次消費者處理並透過 Bot API 回覆
+         */
+        KAFKA
+    }
+
+    public enum TransportType {
+        /**
+         * 所有機器人共用一個支援 HTTP/2 的非同步 HttpClient
+         */
+        SHARED,
+        /**
+         * 使用函式庫內建、每個機器人各自一個的阻塞式 HTTP 客戶端
+         */
+        PER_BOT
+    }
+
+    public enum DedupStore {
+        /**
+         * 只在本節點記憶體中去除重複
+         */
+        LOCAL,
+        /**
+         * 本節點未見過的更新再以資料庫確認，涵蓋 Telegram 重送到其他節點的情況
+         */
+        DATABASE
+    }
+
+    public enum RoutingBootstrap {
+        /**
+         * 啟動時從資料庫載入所有啟用中的機器人
+         */
+        DATABASE,
+        /**
+         * 啟動時重播壓縮的 bot-state 主題，失敗或主題尚無資料時退回資料庫
+         */
+        KAFKA
+    }
+
+    public enum ClusterMode {
+        /**
+         * 單一節點，自行註冊與取消所有 webhook
+         */
+        STANDALONE,
+        /**
+         * 多節點，透過資料庫租約選出唯一負責 webhook 註冊的節點
+         */
+        LEASE
+    }
+
+    @Getter
+    @Setter
+    public static class Ingestion {
+
+        private IngestionMode mode = IngestionMode.SYNC;
+        private int lanes = 64;
+        private int laneQueueCapacity = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Outbound {
+
+        private double perBotPerSecond = 30;
+        private double perChatPerSecond = 1;
+        private double perGroupPerMinute = 20;
+        private int maxAttempts = 5;
+        private long retryBackoffMs = 1000;
+        private int maxBacklogPerChat = 100;
+        private int maxBacklog = 100000;
+    }
+
+    @Getter
+    @Setter
+    public static class Registration {
+
+        private int concurrency = 16;
+        private long timeoutMs = 10000;
+        private int maxAttempts = 3;
+        private long retryBackoffMs = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Cluster {
+
+        private ClusterMode mode = ClusterMode.STANDALONE;
+        private String nodeId;
+        private long leaseTtlMs = 30000;
+        private long renewIntervalMs = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Routing {
+
+        private RoutingBootstrap bootstrap = RoutingBootstrap.KAFKA;
+        private long replayTimeoutMs = 30000;
+    }
+
+    @Getter
+    @Setter
+    public static class Outbox {
+
+        private long pollIntervalMs = 200;
+        private int batchSize = 500;
+        private long publishTimeoutMs = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Shutdown {
+
+        private long drainTimeoutMs = 30000;
+        private long deregisterTimeoutMs = 30000;
+    }
+
+    @Getter
+    @Setter
+    public static class Transport {
+
+        private TransportType type = TransportType.SHARED;
+        private long connectTimeoutMs = 5000;
+        private long requestTimeoutMs = 30000;
+    }
+
+    @Getter
+    @Setter
+    public static class Dedup {
+
+        private boolean enabled = true;
+        private int windowSize = 1024;
+        private DedupStore store = DedupStore.LOCAL;
+        private long retentionMinutes = 60;
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+
+        private int maxTaggedBots = 100;
+        private List<String> taggedBots = new ArrayList<>();
+    }
 }
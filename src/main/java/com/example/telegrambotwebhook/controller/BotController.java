@@ -1,21 +1,35 @@
 package com.example.telegrambotwebhook.controller;
 
+import com.example.telegrambotwebhook.dto.BotBulkCreateRequest;
+import com.example.telegrambotwebhook.dto.BotBulkIdRequest;
+import com.example.telegrambotwebhook.dto.BotBulkResponse;
+import com.example.telegrambotwebhook.dto.BotBulkUpdateRequest;
 import com.example.telegrambotwebhook.dto.BotCreateRequest;
 import com.example.telegrambotwebhook.dto.BotIdRequest;
+import com.example.telegrambotwebhook.dto.BotPage;
+import com.example.telegrambotwebhook.dto.BotRoutingStatus;
 import com.example.telegrambotwebhook.dto.BotUpdateRequest;
+import com.example.telegrambotwebhook.dto.WebhookRegistrationProgress;
 import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.kafka.ClusterEventPublisher;
+import com.example.telegrambotwebhook.service.BotBulkService;
+import com.example.telegrambotwebhook.service.BotManager;
+import com.example.telegrambotwebhook.service.BotRoutingTable;
 import com.example.telegrambotwebhook.service.BotService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -24,6 +38,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RestController
@@ -33,37 +48,80 @@ import org.springframework.web.bind.annotation.RestController;
 public class BotController {
 
     private final BotService botService;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final BotBulkService botBulkService;
+    private final BotManager botManager;
+    private final BotRoutingTable botRoutingTable;
+    private final ClusterEventPublisher clusterEventPublisher;
+    private final ObjectMapper objectMapper;
 
-    @Value("${kafka.topic.bot-update}")
-    private String botUpdateTopic;
-
-    @Value("${kafka.topic.webhook-registered}")
-    private String webhookRegisteredTopic;
-
-    /**
-     * 發送 Bot 更新通知
-     */
-    private void notifyBotUpdated(String username) {
-        log.info("發送 Bot 更新通知: {}", username);
-        kafkaTemplate.send(botUpdateTopic, username);
-    }
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BULK_SIZE = 1000;
+    // 串流匯出時每寫出這麼多筆就送出一次，避免逐筆 flush
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
 
     /**
      * 發送 Webhook 註冊通知
      */
-    private void notifyWebhookRegistered(String username) {
-        log.info("發送 Webhook 註冊通知: {}", username);
-        kafkaTemplate.send(webhookRegisteredTopic, username);
+    private void notifyWebhookRegistered(BotEntity bot) {
+        clusterEventPublisher.publishWebhookRegistered(bot);
     }
 
     @GetMapping
-    @Operation(summary = "獲取所有機器人", description = "取得所有註冊的 Telegram 機器人清單")
+    @Operation(summary = "獲取所有機器人", description = "取得所有註冊的 Telegram 機器人清單，含 Token；"
+            + "機器人數量多時請改用 /api/bots/page 或 /api/bots/export", deprecated = true)
     public ResponseEntity<List<BotEntity>> getAllBots() {
         log.debug("取得所有機器人清單");
         return ResponseEntity.ok(botService.getAllBots());
     }
 
+    @GetMapping("/page")
+    @Operation(summary = "分頁查詢機器人", description = "以 ID 為游標分頁取得機器人清單，不含 Token")
+    public ResponseEntity<BotPage> listBots(
+            @Parameter(description = "上一頁回傳的 nextCursor，第一頁不需帶入")
+            @RequestParam(required = false) Long afterId,
+            @Parameter(description = "每頁筆數，最多 1000")
+            @RequestParam(defaultValue = "100") int limit,
+            @Parameter(description = "只列出啟用或停用的機器人")
+            @RequestParam(required = false) Boolean enable,
+            @Parameter(description = "使用者名稱前綴")
+            @RequestParam(required = false) String usernamePrefix) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(botService.listBots(afterId, limit, enable, usernamePrefix));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "匯出機器人", description = "以 JSON 陣列串流輸出符合條件的機器人，不含 Token，"
+            + "資料庫讀到一筆就寫出一筆")
+    public ResponseEntity<StreamingResponseBody> exportBots(
+            @Parameter(description = "只列出啟用或停用的機器人")
+            @RequestParam(required = false) Boolean enable,
+            @Parameter(description = "使用者名稱前綴")
+            @RequestParam(required = false) String usernamePrefix) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                int[] written = {0};
+                botService.exportBots(enable, usernamePrefix, summary -> {
+                    try {
+                        generator.writeObject(summary);
+                        if (++written[0] % EXPORT_FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+                log.debug("匯出機器人 {} 筆", written[0]);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     @GetMapping("/bot")
     @Operation(summary = "根據 ID 獲取機器人", description = "根據指定的 ID 取得特定的 Telegram 機器人資訊")
     public ResponseEntity<BotEntity> getBotById(
@@ -75,6 +133,19 @@ public class BotController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/webhook-registration")
+    @Operation(summary = "查詢批次 Webhook 註冊進度", description = "取得最近一次批次 Webhook 註冊的進度")
+    public ResponseEntity<WebhookRegistrationProgress> getWebhookRegistrationProgress() {
+        WebhookRegistrationProgress progress = botManager.getRegistrationProgress();
+        return progress == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(progress);
+    }
+
+    @GetMapping("/routing")
+    @Operation(summary = "查詢路由表狀態", description = "取得本節點記憶體路由表的數量、版本與最後更新時間")
+    public ResponseEntity<BotRoutingStatus> getRoutingStatus() {
+        return ResponseEntity.ok(botRoutingTable.getStatus());
+    }
+
     @PostMapping
     @Operation(summary = "建立新機器人", description = "註冊一個新的 Telegram 機器人")
     public ResponseEntity<BotEntity> createBot(
@@ -86,15 +157,13 @@ public class BotController {
                 .username(request.getUsername())
                 .token(request.getToken())
                 .enable(request.getEnable())
+                .commands(request.getCommands())
                 .build();
 
         BotEntity savedBot = botService.createBot(botEntity);
 
-        // 發送通知
-        notifyBotUpdated(savedBot.getUsername());
-
         if (Boolean.TRUE.equals(savedBot.getEnable())) {
-            notifyWebhookRegistered(savedBot.getUsername());
+            notifyWebhookRegistered(savedBot);
         }
 
         return ResponseEntity.status(HttpStatus.CREATED).body(savedBot);
@@ -120,6 +189,7 @@ public class BotController {
                 .username(request.getUsername())
                 .token(request.getToken())
                 .enable(request.getEnable())
+                .commands(request.getCommands())
                 .build();
 
         BotEntity updatedBot = botService.updateBot(botEntity);
@@ -127,11 +197,8 @@ public class BotController {
             return ResponseEntity.notFound().build();
         }
 
-        // 發送通知
-        notifyBotUpdated(updatedBot.getUsername());
-
         if (willBeEnabled && !wasEnabled) {
-            notifyWebhookRegistered(updatedBot.getUsername());
+            notifyWebhookRegistered(updatedBot);
         }
 
         return ResponseEntity.ok(updatedBot);
@@ -149,16 +216,15 @@ public class BotController {
             return ResponseEntity.notFound().build();
         }
 
-        String username = existingBot.get().getUsername();
         boolean wasEnabled = Boolean.TRUE.equals(existingBot.get().getEnable());
 
-        botService.enableBot(request.getId());
-
-        // 發送通知
-        notifyBotUpdated(username);
+        BotEntity enabledBot = botService.enableBot(request.getId());
+        if (enabledBot == null) {
+            return ResponseEntity.notFound().build();
+        }
 
         if (!wasEnabled) {
-            notifyWebhookRegistered(username);
+            notifyWebhookRegistered(enabledBot);
         }
 
         return ResponseEntity.ok().build();
@@ -176,11 +242,10 @@ public class BotController {
             return ResponseEntity.notFound().build();
         }
 
-        String username = existingBot.get().getUsername();
-        botService.disableBot(request.getId());
-
-        // 發送通知
-        notifyBotUpdated(username);
+        BotEntity disabledBot = botService.disableBot(request.getId());
+        if (disabledBot == null) {
+            return ResponseEntity.notFound().build();
+        }
 
         return ResponseEntity.ok().build();
     }
@@ -197,12 +262,86 @@ public class BotController {
             return ResponseEntity.notFound().build();
         }
 
-        String username = existingBot.get().getUsername();
         botService.deleteBot(request.getId());
 
-        // 發送通知
-        notifyBotUpdated(username);
-
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping("/bulk")
+    @Operation(summary = "批次建立機器人", description = "一次建立多個機器人並以有限並行數註冊 Webhook，回傳每個機器人的結果")
+    public ResponseEntity<BotBulkResponse> createBots(
+            @Parameter(description = "機器人資訊，最多 1000 筆", required = true)
+            @RequestBody BotBulkCreateRequest request) {
+        if (!isValidBulkSize(request.getBots())) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<BotEntity> bots = request.getBots().stream()
+                .map(bot -> BotEntity.builder()
+                        .username(bot.getUsername())
+                        .token(bot.getToken())
+                        .enable(bot.getEnable())
+                        .commands(bot.getCommands())
+                        .build())
+                .toList();
+        return ResponseEntity.ok(botBulkService.createBots(bots));
+    }
+
+    @PutMapping("/bulk")
+    @Operation(summary = "批次更新機器人", description = "一次更新多個機器人的資訊，回傳每個機器人的結果")
+    public ResponseEntity<BotBulkResponse> updateBots(
+            @Parameter(description = "更新的機器人資訊，最多 1000 筆", required = true)
+            @RequestBody BotBulkUpdateRequest request) {
+        if (!isValidBulkSize(request.getBots())) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<BotEntity> bots = request.getBots().stream()
+                .map(bot -> BotEntity.builder()
+                        .id(bot.getId())
+                        .username(bot.getUsername())
+                        .token(bot.getToken())
+                        .enable(bot.getEnable())
+                        .commands(bot.getCommands())
+                        .build())
+                .toList();
+        return ResponseEntity.ok(botBulkService.updateBots(bots));
+    }
+
+    @PutMapping("/bulk/enable")
+    @Operation(summary = "批次啟用機器人", description = "一次啟用多個機器人並註冊 Webhook，回傳每個機器人的結果")
+    public ResponseEntity<BotBulkResponse> enableBots(
+            @Parameter(description = "機器人 ID，最多 1000 筆", required = true)
+            @RequestBody BotBulkIdRequest request) {
+        if (!isValidBulkSize(request.getIds())) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(botBulkService.enableBots(request.getIds()));
+    }
+
+    @PutMapping("/bulk/disable")
+    @Operation(summary = "批次停用機器人", description = "一次停用多個機器人並取消 Webhook，回傳每個機器人的結果")
+    public ResponseEntity<BotBulkResponse> disableBots(
+            @Parameter(description = "機器人 ID，最多 1000 筆", required = true)
+            @RequestBody BotBulkIdRequest request) {
+        if (!isValidBulkSize(request.getIds())) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(botBulkService.disableBots(request.getIds()));
+    }
+
+    @DeleteMapping("/bulk")
+    @Operation(summary = "批次刪除機器人", description = "一次刪除多個機器人並取消 Webhook，回傳每個機器人的結果")
+    public ResponseEntity<BotBulkResponse> deleteBots(
+            @Parameter(description = "機器人 ID，最多 1000 筆", required = true)
+            @RequestBody BotBulkIdRequest request) {
+        if (!isValidBulkSize(request.getIds())) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(botBulkService.deleteBots(request.getIds()));
+    }
+
+    private static boolean isValidBulkSize(List<?> items) {
+        return items != null && !items.isEmpty() && items.size() <= MAX_BULK_SIZE;
+    }
 }
@@ -1,12 +1,13 @@
 package com.example.telegrambotwebhook.controller;
 
+import com.example.telegrambotwebhook.kafka.ClusterEventPublisher;
+import com.example.telegrambotwebhook.service.BotRoutingTable;
 import com.example.telegrambotwebhook.service.BotService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -19,13 +20,15 @@ import org.springframework.web.bind.annotation.RestController;
 public class CacheController {
 
     private final BotService botService;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final BotRoutingTable botRoutingTable;
+    private final ClusterEventPublisher clusterEventPublisher;
 
     @PostMapping("/clear")
     @Operation(summary = "清除所有快取", description = "直接清除系統中所有機器人相關的快取")
     public ResponseEntity<Void> clearAllCache() {
         log.debug("API 請求清除所有快取");
         botService.evictAllBotCache();
+        botRoutingTable.reload();
         return ResponseEntity.ok().build();
     }
 
@@ -33,7 +36,7 @@ public class CacheController {
     @Operation(summary = "透過 Kafka 清除快取", description = "發送消息到 Kafka 觸發快取清除")
     public ResponseEntity<Void> clearCacheViaKafka() {
         log.debug("發送 Kafka 消息以清除快取");
-        kafkaTemplate.send("bot-cache-clear", "清除所有快取的請求");
+        clusterEventPublisher.publishCacheClear();
         return ResponseEntity.ok().build();
     }
 }
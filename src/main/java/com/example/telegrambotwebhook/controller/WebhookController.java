@@ -1,29 +1,119 @@
 package com.example.telegrambotwebhook.controller;
 
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.kafka.UpdateIngestionProducer;
+import com.example.telegrambotwebhook.service.BotRoutingTable;
 import com.example.telegrambotwebhook.service.MessageHandlerService;
+import com.example.telegrambotwebhook.service.UpdateDeduplicator;
+import com.example.telegrambotwebhook.service.UpdateDispatcher;
+import com.example.telegrambotwebhook.service.WebhookIntake;
+import com.example.telegrambotwebhook.update.UpdateEnvelope;
+import com.example.telegrambotwebhook.update.UpdateEnvelopeParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import lombok.RequiredArgsConstructor;
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
-import org.telegram.telegrambots.meta.api.objects.Update;
 
+@Slf4j
 @RestController
-@RequiredArgsConstructor
 @Tag(name = "Telegram Webhook", description = "Telegram 訊息接收端點")
 public class WebhookController {
 
     private final MessageHandlerService messageHandlerService;
+    private final UpdateDispatcher updateDispatcher;
+    private final UpdateIngestionProducer updateIngestionProducer;
+    private final TelegramBotConfig telegramBotConfig;
+    private final UpdateEnvelopeParser updateEnvelopeParser;
+    private final BotRoutingTable botRoutingTable;
+    private final UpdateDeduplicator updateDeduplicator;
+    private final WebhookIntake webhookIntake;
+    private final Counter unknownBotCounter;
+
+    public WebhookController(MessageHandlerService messageHandlerService, UpdateDispatcher updateDispatcher,
+                             UpdateIngestionProducer updateIngestionProducer, TelegramBotConfig telegramBotConfig,
+                             UpdateEnvelopeParser updateEnvelopeParser, BotRoutingTable botRoutingTable,
+                             UpdateDeduplicator updateDeduplicator, WebhookIntake webhookIntake,
+                             MeterRegistry meterRegistry) {
+        this.messageHandlerService = messageHandlerService;
+        this.updateDispatcher = updateDispatcher;
+        this.updateIngestionProducer = updateIngestionProducer;
+        this.telegramBotConfig = telegramBotConfig;
+        this.updateEnvelopeParser = updateEnvelopeParser;
+        this.botRoutingTable = botRoutingTable;
+        this.updateDeduplicator = updateDeduplicator;
+        this.webhookIntake = webhookIntake;
+        this.unknownBotCounter = Counter.builder("telegram.webhook.unknown.rejected")
+                .description("因機器人不存在或未啟用而拒絕的 webhook 請求數量")
+                .register(meterRegistry);
+    }
 
     @PostMapping("/webhook/{botUsername}")
     @Operation(summary = "接收 Telegram 更新", description = "接收 Telegram 伺服器發送的訊息更新")
-    public BotApiMethod<?> onUpdateReceived(
+    public ResponseEntity<BotApiMethod<?>> onUpdateReceived(
             @Parameter(description = "機器人使用者名稱", required = true) @PathVariable String botUsername,
-            @Parameter(description = "Telegram 更新內容", required = true) @RequestBody Update update) {
-        return messageHandlerService.processUpdate(botUsername, update);
+            @Parameter(description = "Telegram 更新內容", required = true) @RequestBody byte[] body) {
+        // 節點關閉中，讓 Telegram 或 nginx 改送到其他節點
+        if (!webhookIntake.isAccepting()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        // 未知或未啟用的機器人在解析內容前直接拒絕，路由表是精確的記憶體查詢，不會觸及資料庫
+        if (botRoutingTable.lookup(botUsername) == null) {
+            unknownBotCounter.increment();
+            log.debug("Rejected update for unknown bot: {}", botUsername);
+            return ResponseEntity.notFound().build();
+        }
+
+        UpdateEnvelope envelope;
+        try {
+            envelope = updateEnvelopeParser.parse(body);
+        } catch (IOException e) {
+            log.warn("Malformed update for bot {}: {}", botUsername, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (envelope.getUpdateId() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        TelegramBotConfig.IngestionMode mode = telegramBotConfig.getIngestion().getMode();
+
+        // Telegram 重送的更新直接回應成功；kafka 模式改由分區消費者去除重複
+        if (mode != TelegramBotConfig.IngestionMode.KAFKA
+                && !updateDeduplicator.markIfNew(botUsername, envelope.getUpdateId())) {
+            return ResponseEntity.ok().build();
+        }
+
+        // 無法接收時回傳 503，讓 Telegram 稍後重送
+        return switch (mode) {
+            case ASYNC -> {
+                if (updateDispatcher.dispatch(botUsername, envelope)) {
+                    yield ResponseEntity.ok().build();
+                }
+                updateDeduplicator.forget(botUsername, envelope.getUpdateId());
+                yield ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            case KAFKA -> updateIngestionProducer.publish(botUsername, envelope.getChatId(), body)
+                    ? ResponseEntity.ok().build()
+                    : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            case SYNC -> {
+                try {
+                    yield ResponseEntity.ok(messageHandlerService.processUpdate(botUsername, envelope));
+                } catch (RuntimeException e) {
+                    updateDeduplicator.forget(botUsername, envelope.getUpdateId());
+                    throw e;
+                }
+            }
+        };
     }
 }
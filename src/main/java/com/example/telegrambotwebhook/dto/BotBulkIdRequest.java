@@ -0,0 +1,19 @@
+package com.example.telegrambotwebhook.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批次操作的機器人 ID 請求")
+public class BotBulkIdRequest {
+
+    @Schema(description = "機器人 ID", example = "[1, 2, 3]")
+    private List<Long> ids;
+}
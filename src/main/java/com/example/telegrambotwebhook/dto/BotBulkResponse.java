@@ -0,0 +1,28 @@
+package com.example.telegrambotwebhook.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批次操作結果")
+public class BotBulkResponse {
+
+    @Schema(description = "請求的機器人數量", example = "500")
+    private int total;
+
+    @Schema(description = "處理成功或無需變更的數量", example = "498")
+    private int succeeded;
+
+    @Schema(description = "處理失敗的數量", example = "2")
+    private int failed;
+
+    @Schema(description = "每個機器人的結果，順序與請求相同")
+    private List<BotBulkResult> results;
+}
@@ -0,0 +1,39 @@
+package com.example.telegrambotwebhook.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批次操作中單一機器人的結果")
+public class BotBulkResult {
+
+    @Schema(description = "機器人 ID", example = "1")
+    private Long id;
+
+    @Schema(description = "機器人使用者名稱", example = "my_telegram_bot")
+    private String username;
+
+    @Schema(description = "處理結果")
+    private Status status;
+
+    @Schema(description = "操作後 Webhook 是否為註冊狀態，未涉及 Webhook 變更時為 null")
+    private Boolean webhookRegistered;
+
+    @Schema(description = "失敗或略過的原因")
+    private String message;
+
+    public enum Status {
+        SUCCEEDED,
+        UNCHANGED,
+        INVALID,
+        NOT_FOUND,
+        CONFLICT,
+        FAILED
+    }
+}
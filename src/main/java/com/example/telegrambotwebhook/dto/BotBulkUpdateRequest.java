@@ -0,0 +1,19 @@
+package com.example.telegrambotwebhook.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批次更新 Telegram Bot 請求")
+public class BotBulkUpdateRequest {
+
+    @Schema(description = "要更新的機器人")
+    private List<BotUpdateRequest> bots;
+}
@@ -21,4 +21,7 @@ public class BotCreateRequest {
 
     @Schema(description = "機器人是否啟用", example = "true", defaultValue = "true")
     private Boolean enable = true;
+
+    @Schema(description = "啟用的指令，以逗號分隔，未設定時啟用所有指令", example = "start,help")
+    private String commands;
 }
@@ -0,0 +1,22 @@
+package com.example.telegrambotwebhook.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "機器人清單的一頁，依 ID 遞增排序")
+public class BotPage {
+
+    @Schema(description = "本頁的機器人")
+    private List<BotSummary> items;
+
+    @Schema(description = "下一頁的游標，帶入 afterId 取得下一頁；沒有更多資料時為 null", example = "100")
+    private Long nextCursor;
+}
@@ -0,0 +1,25 @@
+package com.example.telegrambotwebhook.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "機器人路由表狀態")
+public class BotRoutingStatus {
+
+    @Schema(description = "收錄的啟用中機器人數量", example = "500")
+    private int size;
+
+    @Schema(description = "路由表版本，每次套用變更遞增", example = "12")
+    private long generation;
+
+    @Schema(description = "最後一次套用變更的時間")
+    private Instant lastAppliedAt;
+}
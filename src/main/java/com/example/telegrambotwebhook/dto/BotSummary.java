@@ -0,0 +1,30 @@
+package com.example.telegrambotwebhook.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "機器人清單項目，不含 API Token")
+public class BotSummary {
+
+    @Schema(description = "機器人 ID", example = "1")
+    private Long id;
+
+    @Schema(description = "機器人使用者名稱", example = "my_telegram_bot")
+    private String username;
+
+    @Schema(description = "機器人是否啟用", example = "true")
+    private Boolean enable;
+
+    @Schema(description = "啟用的指令，以逗號分隔，未設定時啟用所有指令", example = "start,help")
+    private String commands;
+
+    @Schema(description = "資料版本號，每次變更遞增", example = "3")
+    private Long version;
+}
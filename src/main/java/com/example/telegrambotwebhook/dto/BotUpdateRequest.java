@@ -24,4 +24,7 @@ public class BotUpdateRequest {
 
     @Schema(description = "機器人是否啟用", example = "true")
     private Boolean enable;
+
+    @Schema(description = "啟用的指令，以逗號分隔，未設定時啟用所有指令", example = "start,help")
+    private String commands;
 }
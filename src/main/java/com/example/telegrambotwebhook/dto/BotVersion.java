@@ -0,0 +1,10 @@
+package com.example.telegrambotwebhook.dto;
+
+/**
+ * 機器人 ID 與資料版本號，用來逐一比對路由表與資料庫
+ *
+ * @param id 機器人 ID
+ * @param version 資料版本號，未設定時為 0
+ */
+public record BotVersion(Long id, Long version) {
+}
@@ -0,0 +1,38 @@
+package com.example.telegrambotwebhook.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.Instant;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批次 Webhook 註冊進度")
+public class WebhookRegistrationProgress {
+
+    @Schema(description = "需要註冊的機器人數量", example = "500")
+    private int total;
+
+    @Schema(description = "註冊成功的數量", example = "480")
+    private int succeeded;
+
+    @Schema(description = "註冊失敗的數量", example = "2")
+    private int failed;
+
+    @Schema(description = "是否已全部處理完成", example = "false")
+    private boolean completed;
+
+    @Schema(description = "開始時間")
+    private Instant startedAt;
+
+    @Schema(description = "完成時間")
+    private Instant completedAt;
+
+    @Schema(description = "註冊失敗的機器人使用者名稱")
+    private List<String> failedUsernames;
+}
@@ -1,15 +1,18 @@
 package com.example.telegrambotwebhook.entity;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "telegram_bots")
@@ -33,4 +36,14 @@ public class BotEntity {
 
     @Schema(description = "機器人是否啟用", example = "true", defaultValue = "true")
     private Boolean enable;
+
+    @Column(length = 1024)
+    @Schema(description = "啟用的指令，以逗號分隔，未設定時啟用所有指令", example = "start,help")
+    private String commands;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @Schema(description = "資料版本號，每次變更遞增", example = "3", accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
 }
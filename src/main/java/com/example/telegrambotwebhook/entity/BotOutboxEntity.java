@@ -0,0 +1,64 @@
+package com.example.telegrambotwebhook.entity;
+
+import com.example.telegrambotwebhook.event.BotChangeEvent;
+import com.example.telegrambotwebhook.event.ClusterEvent;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "bot_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "與機器人變更在同一交易寫入、尚未送到 Kafka 的變更通知")
+public class BotOutboxEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Schema(description = "流水號，依此順序送出", example = "1")
+    private Long id;
+
+    @Column(name = "bot_id", nullable = false)
+    @Schema(description = "機器人 ID", example = "1")
+    private Long botId;
+
+    @Column(name = "old_username")
+    @Schema(description = "變更前的使用者名稱", example = "my_telegram_bot")
+    private String oldUsername;
+
+    @Column(name = "username")
+    @Schema(description = "變更後的使用者名稱", example = "my_telegram_bot")
+    private String username;
+
+    @Column(nullable = false)
+    @Schema(description = "變更後的資料版本號", example = "3")
+    private Long version;
+
+    @Column(nullable = false)
+    @Schema(description = "是否為刪除")
+    private Boolean deleted;
+
+    @Column(length = 255)
+    @Schema(description = "寫入的節點，該節點已在本地套用變更", example = "telegram-bot-app-1")
+    private String origin;
+
+    @Column(name = "created_at", nullable = false)
+    @Schema(description = "寫入時間")
+    private Instant createdAt;
+
+    public ClusterEvent toClusterEvent() {
+        return ClusterEvent.botChanged(
+                new BotChangeEvent(botId, oldUsername, username, version, Boolean.TRUE.equals(deleted)), origin);
+    }
+}
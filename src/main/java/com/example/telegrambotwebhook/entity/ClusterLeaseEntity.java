@@ -0,0 +1,29 @@
+package com.example.telegrambotwebhook.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "cluster_leases")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterLeaseEntity {
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,32 @@
+package com.example.telegrambotwebhook.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "processed_updates", indexes = @Index(name = "idx_processed_updates_processed_at", columnList = "processed_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "已處理的更新，供多節點去除 Telegram 重送的更新")
+public class ProcessedUpdateEntity {
+
+    @Id
+    @Column(name = "update_key", length = 300)
+    @Schema(description = "機器人使用者名稱與 update_id", example = "my_telegram_bot:123456789")
+    private String updateKey;
+
+    @Column(name = "processed_at", nullable = false)
+    @Schema(description = "處理時間")
+    private Instant processedAt;
+}
@@ -0,0 +1,42 @@
+package com.example.telegrambotwebhook.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "webhook_registrations")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Webhook 註冊狀態")
+public class WebhookRegistrationEntity {
+
+    @Id
+    @Schema(description = "機器人使用者名稱", example = "my_telegram_bot")
+    private String username;
+
+    @Column(nullable = false)
+    @Schema(description = "Webhook 是否已註冊", example = "true")
+    private Boolean registered;
+
+    @Column(name = "webhook_url", length = 1024)
+    @Schema(description = "已註冊的 Webhook URL")
+    private String webhookUrl;
+
+    @Column(name = "updated_by")
+    @Schema(description = "最後更新狀態的節點")
+    private String updatedBy;
+
+    @Column(name = "updated_at")
+    @Schema(description = "最後更新時間")
+    private Instant updatedAt;
+}
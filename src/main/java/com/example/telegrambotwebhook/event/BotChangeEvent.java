@@ -0,0 +1,35 @@
+package com.example.telegrambotwebhook.event;
+
+import com.example.telegrambotwebhook.entity.BotEntity;
+
+/**
+ * 機器人資料變更通知，各節點依此精準清除快取，並以版本號忽略亂序抵達的舊事件
+ *
+ * @param botId 機器人 ID
+ * @param oldUsername 變更前的使用者名稱，新建立時為 null
+ * @param newUsername 變更後的使用者名稱
+ * @param version 變更後的版本號
+ * @param deleted 是否已刪除
+ */
+public record BotChangeEvent(Long botId, String oldUsername, String newUsername, Long version, boolean deleted) {
+
+    /**
+     * 建立或更新後的通知
+     *
+     * @param bot 已儲存的機器人
+     * @param previousUsername 變更前的使用者名稱
+     */
+    public static BotChangeEvent updated(BotEntity bot, String previousUsername) {
+        return new BotChangeEvent(bot.getId(), previousUsername, bot.getUsername(), bot.getVersion(), false);
+    }
+
+    /**
+     * 刪除後的通知，版本號比最後一次儲存的版本大一，確保優先於所有更新事件
+     *
+     * @param bot 刪除前的機器人
+     */
+    public static BotChangeEvent deleted(BotEntity bot) {
+        long version = bot.getVersion() == null ? 0L : bot.getVersion() + 1;
+        return new BotChangeEvent(bot.getId(), bot.getUsername(), bot.getUsername(), version, true);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.telegrambotwebhook.event;
+
+/**
+ * 節點間廣播的事件，以機器人 ID 為 Kafka key，同一機器人的事件保持分區內的順序
+ *
+ * @param type 事件類型
+ * @param botId 機器人 ID，不針對單一機器人的事件為 0
+ * @param oldUsername 變更前的使用者名稱
+ * @param username 目前的使用者名稱
+ * @param version 機器人的資料版本號
+ * @param deleted 機器人是否已刪除
+ * @param origin 發出事件的節點 ID
+ */
+public record ClusterEvent(Type type, long botId, String oldUsername, String username, long version,
+                           boolean deleted, String origin) {
+
+    public enum Type {
+        /**
+         * 機器人建立、更新或刪除
+         */
+        BOT_CHANGED(1),
+        /**
+         * 機器人的 Webhook 已向 Telegram 註冊
+         */
+        WEBHOOK_REGISTERED(2),
+        /**
+         * 清除所有機器人快取並重新載入路由表
+         */
+        CACHE_CLEARED(3);
+
+        private final int code;
+
+        Type(int code) {
+            this.code = code;
+        }
+
+        /**
+         * 寫入訊息的類型代碼，新增類型時不可重複使用舊代碼
+         */
+        public int code() {
+            return code;
+        }
+
+        public static Type of(int code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown cluster event type: " + code);
+        }
+    }
+
+    public static ClusterEvent botChanged(BotChangeEvent event, String origin) {
+        return new ClusterEvent(Type.BOT_CHANGED, event.botId(), event.oldUsername(), event.newUsername(),
+                event.version() == null ? 0L : event.version(), event.deleted(), origin);
+    }
+
+    public static ClusterEvent webhookRegistered(long botId, String username, String origin) {
+        return new ClusterEvent(Type.WEBHOOK_REGISTERED, botId, null, username, 0L, false, origin);
+    }
+
+    public static ClusterEvent cacheCleared(String origin) {
+        return new ClusterEvent(Type.CACHE_CLEARED, 0L, null, null, 0L, false, origin);
+    }
+
+    /**
+     * 轉回機器人變更通知，僅適用於 BOT_CHANGED
+     */
+    public BotChangeEvent toBotChangeEvent() {
+        return new BotChangeEvent(botId, oldUsername, username, version, deleted);
+    }
+
+    /**
+     * Kafka 訊息的 key，不針對單一機器人的事件沒有 key
+     */
+    public String key() {
+        return botId == 0L ? null : String.valueOf(botId);
+    }
+}
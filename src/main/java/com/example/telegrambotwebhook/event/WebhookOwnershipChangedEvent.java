@@ -0,0 +1,9 @@
+package com.example.telegrambotwebhook.event;
+
+/**
+ * 本節點取得或失去 webhook 註冊租約時發布
+ *
+ * @param owner 本節點目前是否為負責節點
+ */
+public record WebhookOwnershipChangedEvent(boolean owner) {
+}
@@ -0,0 +1,31 @@
+package com.example.telegrambotwebhook.health;
+
+import com.example.telegrambotwebhook.dto.WebhookRegistrationProgress;
+import com.example.telegrambotwebhook.service.BotManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 啟動時的批次 webhook 註冊完成前回報 OUT_OF_SERVICE，供 readiness 探針使用
+ */
+@Component
+@RequiredArgsConstructor
+public class WebhookRegistrationHealthIndicator implements HealthIndicator {
+
+    private final BotManager botManager;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = botManager.isInitialRegistrationComplete() ? Health.up() : Health.outOfService();
+
+        WebhookRegistrationProgress progress = botManager.getRegistrationProgress();
+        if (progress != null) {
+            builder.withDetail("total", progress.getTotal())
+                    .withDetail("succeeded", progress.getSucceeded())
+                    .withDetail("failed", progress.getFailed());
+        }
+        return builder.build();
+    }
+}
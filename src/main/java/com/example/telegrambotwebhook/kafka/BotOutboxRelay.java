@@ -0,0 +1,150 @@
+package com.example.telegrambotwebhook.kafka;
+
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.entity.BotOutboxEntity;
+import com.example.telegrambotwebhook.repository.BotOutboxRepository;
+import com.example.telegrambotwebhook.repository.BotRepository;
+import com.example.telegrambotwebhook.service.ClusterCoordinator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 將 outbox 中的 Bot 變更通知轉送到 Kafka，至少送達一次。
+ * 只由持有 webhook 租約的節點執行；每批在交易內鎖定最舊的通知、等待 Kafka 確認後才刪除，
+ * 失敗時整批保留到下次重送，同一機器人的通知維持寫入順序。
+ * bot-state 主題尚無資料時，在第一次轉送之前由資料庫寫入完整狀態。
+ */
+@Slf4j
+@Component
+public class BotOutboxRelay {
+
+    private final BotOutboxRepository botOutboxRepository;
+    private final BotRepository botRepository;
+    private final ClusterEventPublisher clusterEventPublisher;
+    private final ClusterCoordinator clusterCoordinator;
+    // telegram-bot.routing.bootstrap=database 時不存在，不需要寫入 bot-state 主題的初始狀態
+    private final ObjectProvider<BotStateReplayer> botStateReplayer;
+    private final TelegramBotConfig.Outbox config;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter relayedCounter;
+    private final Counter failureCounter;
+    // 只由排程執行緒讀寫
+    private boolean botStatesChecked;
+    private boolean seedingBotStates;
+
+    public BotOutboxRelay(BotOutboxRepository botOutboxRepository, BotRepository botRepository,
+                          ClusterEventPublisher clusterEventPublisher, ClusterCoordinator clusterCoordinator,
+                          ObjectProvider<BotStateReplayer> botStateReplayer, TelegramBotConfig telegramBotConfig,
+                          PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.botOutboxRepository = botOutboxRepository;
+        this.botRepository = botRepository;
+        this.clusterEventPublisher = clusterEventPublisher;
+        this.clusterCoordinator = clusterCoordinator;
+        this.botStateReplayer = botStateReplayer;
+        this.config = telegramBotConfig.getOutbox();
+
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 只鎖定讀到的通知，不以間隙鎖阻擋管理 API 同時寫入新的通知
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+
+        this.relayedCounter = Counter.builder("telegram.outbox.relayed")
+                .description("已轉送到 Kafka 的 Bot 變更通知數量")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("telegram.outbox.failures")
+                .description("轉送失敗、保留到下次重送的批次數量")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${telegram-bot.outbox.poll-interval-ms:200}")
+    public void relay() {
+        if (!clusterCoordinator.isWebhookOwner()) {
+            return;
+        }
+
+        try {
+            seedBotStates();
+            // 整批送滿時可能還有剩餘，繼續轉送直到清空
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == config.getBatchSize());
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            log.warn("Relaying bot change outbox failed, retrying in next run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 主題為空時寫入資料庫目前的完整狀態；與轉送在同一執行緒依序執行，轉送的較新狀態不會被較舊的初始狀態覆蓋。
+     * 寫入失敗時下次轉送前重試，每次都重新讀取資料庫，內容不會比已轉送的狀態舊
+     */
+    private void seedBotStates() {
+        if (botStatesChecked) {
+            return;
+        }
+        BotStateReplayer replayer = botStateReplayer.getIfAvailable();
+        if (replayer != null && (seedingBotStates || replayer.isEmpty())) {
+            seedingBotStates = true;
+            if (!replayer.seed(botRepository.findByEnableTrue())) {
+                return;
+            }
+        }
+        botStatesChecked = true;
+    }
+
+    private int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<BotOutboxEntity> rows = botOutboxRepository.lockOldest(config.getBatchSize());
+            if (rows.isEmpty()) {
+                return 0;
+            }
+
+            List<Long> botIds = rows.stream().map(BotOutboxEntity::getBotId).distinct().toList();
+            Map<Long, BotEntity> bots = new HashMap<>();
+            botRepository.findAllById(botIds).forEach(bot -> bots.put(bot.getId(), bot));
+
+            await(clusterEventPublisher.publishBotChanges(
+                    rows.stream().map(BotOutboxEntity::toClusterEvent).toList(), bots));
+            botOutboxRepository.deleteAllByIdInBatch(rows.stream().map(BotOutboxEntity::getId).toList());
+            return rows.size();
+        });
+
+        int count = relayed == null ? 0 : relayed;
+        if (count > 0) {
+            relayedCounter.increment(count);
+            log.debug("Relayed {} bot change notifications", count);
+        }
+        return count;
+    }
+
+    /**
+     * 等待 Kafka 確認，失敗或逾時時拋出例外讓交易回滾、保留通知
+     */
+    private void await(CompletableFuture<Void> sends) {
+        try {
+            sends.get(config.getPublishTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while relaying bot change outbox", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Publishing bot change outbox failed: " + e.getCause().getMessage(), e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Publishing bot change outbox timed out", e);
+        }
+    }
+}
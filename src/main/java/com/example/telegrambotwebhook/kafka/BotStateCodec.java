@@ -0,0 +1,59 @@
+package com.example.telegrambotwebhook.kafka;
+
+import com.example.telegrambotwebhook.routing.BotRoute;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * bot-state 主題的二進位格式：格式版本、機器人 ID、版本號、使用者名稱、token 與可為空的指令設定。
+ * 與叢集事件相同，欄位只能附加在尾端，讀取端忽略不認得的尾端資料。
+ */
+public final class BotStateCodec {
+
+    static final int FORMAT_VERSION = 1;
+
+    private BotStateCodec() {
+    }
+
+    public static byte[] encode(BotRoute route) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(route.id());
+            out.writeLong(route.version());
+            out.writeUTF(route.username());
+            out.writeUTF(route.token());
+            out.writeBoolean(route.commands() != null);
+            if (route.commands() != null) {
+                out.writeUTF(route.commands());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException 內容不完整或格式版本無法辨識時
+     */
+    public static BotRoute decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int formatVersion = in.readUnsignedByte();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported bot state format: " + formatVersion);
+            }
+            long id = in.readLong();
+            long version = in.readLong();
+            String username = in.readUTF();
+            String token = in.readUTF();
+            String commands = in.readBoolean() ? in.readUTF() : null;
+            return new BotRoute(id, username, token, commands, version);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed bot state", e);
+        }
+    }
+}
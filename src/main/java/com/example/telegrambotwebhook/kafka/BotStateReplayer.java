@@ -0,0 +1,164 @@
+package com.example.telegrambotwebhook.kafka;
+
+import com.example.telegrambotwebhook.config.KafkaConfig;
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.routing.BotRoute;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * 重播壓縮的 bot-state 主題取得所有啟用中機器人的最新狀態，新節點啟動時不必從資料庫載入路由表
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "telegram-bot.routing", name = "bootstrap", havingValue = "kafka", matchIfMissing = true)
+public class BotStateReplayer {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(200);
+
+    private final ConsumerFactory<String, byte[]> botStateConsumerFactory;
+    private final ClusterEventPublisher clusterEventPublisher;
+    private final String topic;
+    private final Duration timeout;
+
+    public BotStateReplayer(
+            @Qualifier(KafkaConfig.BOT_STATE_CONSUMER_FACTORY) ConsumerFactory<String, byte[]> botStateConsumerFactory,
+            ClusterEventPublisher clusterEventPublisher, TelegramBotConfig telegramBotConfig,
+            @Value("${kafka.topic.bot-state}") String topic) {
+        this.botStateConsumerFactory = botStateConsumerFactory;
+        this.clusterEventPublisher = clusterEventPublisher;
+        this.topic = topic;
+        this.timeout = Duration.ofMillis(telegramBotConfig.getRouting().getReplayTimeoutMs());
+    }
+
+    /**
+     * 從頭讀到各分區目前的結尾，同一機器人只保留版本號最新的狀態
+     *
+     * @return 啟用中的機器人，主題尚未寫入任何資料時回傳空值
+     * @throws IllegalStateException 逾時未讀完時
+     */
+    public Optional<List<BotRoute>> replay() {
+        long startedAt = System.nanoTime();
+        try (Consumer<String, byte[]> consumer = botStateConsumerFactory.createConsumer()) {
+            List<TopicPartition> partitions = partitions(consumer);
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, timeout);
+            if (isEmpty(endOffsets)) {
+                log.info("Bot state topic {} is empty", topic);
+                return Optional.empty();
+            }
+
+            Map<Long, BotRoute> routes = new HashMap<>();
+            long deadline = startedAt + timeout.toNanos();
+            int records = 0;
+            while (!reachedEnd(consumer, endOffsets)) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Replaying bot state topic " + topic + " timed out after "
+                            + records + " records");
+                }
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                    records++;
+                    apply(routes, record);
+                }
+            }
+
+            log.info("Replayed {} bot state records into {} enabled bots in {} ms", records, routes.size(),
+                    Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+            return Optional.of(new ArrayList<>(routes.values()));
+        }
+    }
+
+    /**
+     * 主題是否尚未寫入任何資料
+     */
+    public boolean isEmpty() {
+        try (Consumer<String, byte[]> consumer = botStateConsumerFactory.createConsumer()) {
+            return isEmpty(consumer.endOffsets(partitions(consumer), timeout));
+        }
+    }
+
+    /**
+     * 將資料庫載入的啟用中機器人寫入主題並等待全部寫入確認，只由持有租約的節點在轉送 outbox 之前呼叫，
+     * 之後轉送的較新狀態一定寫在後面。失敗或逾時時主題可能只有部分內容，
+     * 之後的節點會在重播結果與資料庫不一致時改由資料庫載入。
+     *
+     * @param bots 啟用中的機器人
+     * @return 全部寫入成功時為 true
+     */
+    public boolean seed(List<BotEntity> bots) {
+        try {
+            clusterEventPublisher.publishBotStates(bots).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            log.info("Seeded bot state topic {} with {} enabled bots", topic, bots.size());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Seeding bot state topic {} interrupted", topic);
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Seeding bot state topic {} failed: {}", topic, e.getMessage());
+        }
+        return false;
+    }
+
+    private static void apply(Map<Long, BotRoute> routes, ConsumerRecord<String, byte[]> record) {
+        long id;
+        try {
+            id = Long.parseLong(record.key());
+        } catch (NumberFormatException e) {
+            log.warn("Skipping bot state with invalid key at {}-{}@{}", record.topic(), record.partition(),
+                    record.offset());
+            return;
+        }
+        // 停用或刪除的機器人為 tombstone，重新啟用時之後會再有新的狀態
+        if (record.value() == null) {
+            routes.remove(id);
+            return;
+        }
+
+        BotRoute route;
+        try {
+            route = BotStateCodec.decode(record.value());
+        } catch (IllegalArgumentException e) {
+            log.warn("Skipping malformed bot state at {}-{}@{}: {}", record.topic(), record.partition(),
+                    record.offset(), e.getMessage());
+            return;
+        }
+        routes.merge(id, route, (current, next) -> next.version() >= current.version() ? next : current);
+    }
+
+    private List<TopicPartition> partitions(Consumer<String, byte[]> consumer) {
+        return consumer.partitionsFor(topic, timeout).stream()
+                .map(info -> new TopicPartition(topic, info.partition()))
+                .toList();
+    }
+
+    private static boolean isEmpty(Map<TopicPartition, Long> endOffsets) {
+        return endOffsets.values().stream().allMatch(offset -> offset == 0);
+    }
+
+    private static boolean reachedEnd(Consumer<String, byte[]> consumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (consumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
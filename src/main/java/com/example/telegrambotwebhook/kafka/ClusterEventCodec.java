@@ -0,0 +1,73 @@
+package com.example.telegrambotwebhook.kafka;
+
+import com.example.telegrambotwebhook.event.ClusterEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 叢集事件的二進位格式：格式版本、類型代碼、旗標、機器人 ID、版本號，以及可為空的字串欄位。
+ * 欄位只能附加在尾端，讀取端忽略不認得的尾端資料，新舊版本的節點可以同時運作。
+ */
+public final class ClusterEventCodec {
+
+    static final int FORMAT_VERSION = 1;
+
+    private static final int FLAG_DELETED = 1;
+
+    private ClusterEventCodec() {
+    }
+
+    public static byte[] encode(ClusterEvent event) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(event.type().code());
+            out.writeByte(event.deleted() ? FLAG_DELETED : 0);
+            out.writeLong(event.botId());
+            out.writeLong(event.version());
+            writeNullable(out, event.oldUsername());
+            writeNullable(out, event.username());
+            writeNullable(out, event.origin());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException 內容不完整、格式版本或事件類型無法辨識時
+     */
+    public static ClusterEvent decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int formatVersion = in.readUnsignedByte();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported cluster event format: " + formatVersion);
+            }
+            ClusterEvent.Type type = ClusterEvent.Type.of(in.readUnsignedByte());
+            int flags = in.readUnsignedByte();
+            long botId = in.readLong();
+            long version = in.readLong();
+            String oldUsername = readNullable(in);
+            String username = readNullable(in);
+            String origin = readNullable(in);
+            return new ClusterEvent(type, botId, oldUsername, username, version, (flags & FLAG_DELETED) != 0, origin);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed cluster event", e);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
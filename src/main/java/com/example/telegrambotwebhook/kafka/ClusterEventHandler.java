@@ -0,0 +1,21 @@
+package com.example.telegrambotwebhook.kafka;
+
+import com.example.telegrambotwebhook.event.ClusterEvent;
+import java.util.List;
+
+/**
+ * 處理單一類型的叢集事件，同一批次中連續的同類型事件會一次交給處理器
+ */
+public interface ClusterEventHandler {
+    /**
+     * 負責處理的事件類型，每個類型只能有一個處理器
+     */
+    ClusterEvent.Type getType();
+
+    /**
+     * 依收到的順序處理事件
+     *
+     * @param events 同類型的事件，不含本節點發出的事件
+     */
+    void handle(List<ClusterEvent> events);
+}
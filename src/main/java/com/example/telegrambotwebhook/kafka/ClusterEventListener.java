@@ -0,0 +1,167 @@
+package com.example.telegrambotwebhook.kafka;
+
+import com.example.telegrambotwebhook.config.KafkaConfig;
+import com.example.telegrambotwebhook.event.ClusterEvent;
+import com.example.telegrambotwebhook.service.BotRoutingTable;
+import com.example.telegrambotwebhook.service.BotService;
+import com.example.telegrambotwebhook.service.ClusterCoordinator;
+import com.example.telegrambotwebhook.service.TelegramBotRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+/**
+ * 批次消費叢集事件，略過本節點發出的事件，連續的同類型事件一次交給對應的處理器。
+ * 每個節點使用自己的消費者群組，所有節點都會收到每一筆事件。
+ * 事件無法解析或處理失敗時退回全部重新載入；重新載入也失敗時拋出例外，由容器以退避重試整批。
+ */
+@Slf4j
+@Component
+public class ClusterEventListener implements ConsumerSeekAware {
+
+    // 容許其他節點與本節點的時鐘誤差
+    private static final long STARTUP_SEEK_MARGIN_MS = 5000;
+
+    private final Map<ClusterEvent.Type, ClusterEventHandler> handlers = new EnumMap<>(ClusterEvent.Type.class);
+    private final ClusterCoordinator clusterCoordinator;
+    private final BotService botService;
+    private final BotRoutingTable botRoutingTable;
+    private final TelegramBotRegistry telegramBotRegistry;
+    private final Map<ClusterEvent.Type, Counter> appliedCounters = new EnumMap<>(ClusterEvent.Type.class);
+    private final Counter selfCounter;
+    private final Counter malformedCounter;
+    private final Counter failedCounter;
+    private final Set<TopicPartition> positioned = ConcurrentHashMap.newKeySet();
+    @Getter
+    private final String groupId;
+
+    public ClusterEventListener(List<ClusterEventHandler> handlers, ClusterCoordinator clusterCoordinator,
+                                BotService botService, BotRoutingTable botRoutingTable,
+                                TelegramBotRegistry telegramBotRegistry, MeterRegistry meterRegistry,
+                                @Value("${spring.kafka.consumer.group-id}") String groupId) {
+        for (ClusterEventHandler handler : handlers) {
+            ClusterEventHandler existing = this.handlers.putIfAbsent(handler.getType(), handler);
+            if (existing != null) {
+                throw new IllegalStateException("Duplicate handlers for cluster event " + handler.getType() + ": "
+                        + existing.getClass().getSimpleName() + ", " + handler.getClass().getSimpleName());
+            }
+        }
+        this.clusterCoordinator = clusterCoordinator;
+        this.botService = botService;
+        this.botRoutingTable = botRoutingTable;
+        this.telegramBotRegistry = telegramBotRegistry;
+        this.groupId = groupId + "-" + clusterCoordinator.getNodeId();
+
+        for (ClusterEvent.Type type : ClusterEvent.Type.values()) {
+            appliedCounters.put(type, eventsCounter(meterRegistry, type.name(), "applied"));
+        }
+        this.selfCounter = eventsCounter(meterRegistry, "any", "self");
+        this.malformedCounter = eventsCounter(meterRegistry, "any", "malformed");
+        this.failedCounter = eventsCounter(meterRegistry, "any", "failed");
+    }
+
+    private static Counter eventsCounter(MeterRegistry meterRegistry, String type, String outcome) {
+        return Counter.builder("telegram.cluster.events")
+                .description("消費的叢集事件數量")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 首次分配到分區時跳到節點啟動的時間點：路由表在啟動時已載入最新狀態，更早的事件不需要再套用，
+     * 而載入期間發出的事件仍會重新套用一次；之後的重新分配沿用已提交的 offset
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        Set<TopicPartition> partitions = assignments.keySet().stream()
+                .filter(positioned::add)
+                .collect(Collectors.toSet());
+        if (partitions.isEmpty()) {
+            return;
+        }
+        long startedAt = ManagementFactory.getRuntimeMXBean().getStartTime();
+        log.info("Consumer group {} seeking {} cluster event partitions to node startup", groupId, partitions.size());
+        callback.seekToTimestamp(partitions, startedAt - STARTUP_SEEK_MARGIN_MS);
+    }
+
+    @KafkaListener(topics = "${kafka.topic.cluster-event}", groupId = "#{__listener.groupId}",
+            containerFactory = KafkaConfig.CLUSTER_EVENT_LISTENER_CONTAINER_FACTORY)
+    public void onEvents(List<ConsumerRecord<String, byte[]>> records) {
+        String nodeId = clusterCoordinator.getNodeId();
+        List<ClusterEvent> run = new ArrayList<>();
+        boolean malformed = false;
+        boolean failed = false;
+
+        for (ConsumerRecord<String, byte[]> record : records) {
+            ClusterEvent event;
+            try {
+                event = ClusterEventCodec.decode(record.value());
+            } catch (IllegalArgumentException e) {
+                malformedCounter.increment();
+                malformed = true;
+                log.warn("Skipping malformed cluster event at {}-{}@{}: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+                continue;
+            }
+            if (nodeId.equals(event.origin())) {
+                selfCounter.increment();
+                continue;
+            }
+
+            // 類型改變時先處理前一段，維持事件之間的先後順序
+            if (!run.isEmpty() && run.get(0).type() != event.type()) {
+                failed |= !dispatch(run);
+                run = new ArrayList<>();
+            }
+            run.add(event);
+        }
+        if (!run.isEmpty()) {
+            failed |= !dispatch(run);
+        }
+
+        if (malformed || failed) {
+            // 無法解析或處理失敗時退回全部重新載入，避免留下過期快取
+            log.warn("Clearing all bot cache after {} cluster events", malformed ? "malformed" : "failed");
+            botService.evictAllBotCache();
+            botRoutingTable.reload();
+            telegramBotRegistry.clear();
+        }
+    }
+
+    /**
+     * @return 處理失敗時為 false
+     */
+    private boolean dispatch(List<ClusterEvent> events) {
+        ClusterEvent.Type type = events.get(0).type();
+        ClusterEventHandler handler = handlers.get(type);
+        if (handler == null) {
+            log.warn("No handler for {} cluster events, skipping {}", type, events.size());
+            return true;
+        }
+        try {
+            handler.handle(events);
+            appliedCounters.get(type).increment(events.size());
+            return true;
+        } catch (RuntimeException e) {
+            failedCounter.increment(events.size());
+            log.error("Handling {} {} cluster events failed with message: {}", events.size(), type, e.getMessage(), e);
+            return false;
+        }
+    }
+}
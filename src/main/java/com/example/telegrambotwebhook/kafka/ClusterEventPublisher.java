@@ -0,0 +1,144 @@
+package com.example.telegrambotwebhook.kafka;
+
+import com.example.telegrambotwebhook.config.KafkaConfig;
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.event.ClusterEvent;
+import com.example.telegrambotwebhook.routing.BotRoute;
+import com.example.telegrambotwebhook.service.ClusterCoordinator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 發送叢集事件給其他節點，以機器人 ID 為 key，由 producer 的 linger 與壓縮合併成批次送出。
+ * 機器人變更時同時寫入 bot-state 壓縮主題，供新節點啟動時重播。
+ */
+@Slf4j
+@Component
+public class ClusterEventPublisher {
+
+    private final KafkaTemplate<String, byte[]> clusterEventKafkaTemplate;
+    private final ClusterCoordinator clusterCoordinator;
+    private final String topic;
+    private final String botStateTopic;
+
+    public ClusterEventPublisher(
+            @Qualifier(KafkaConfig.CLUSTER_EVENT_KAFKA_TEMPLATE) KafkaTemplate<String, byte[]> clusterEventKafkaTemplate,
+            ClusterCoordinator clusterCoordinator,
+            @Value("${kafka.topic.cluster-event}") String topic,
+            @Value("${kafka.topic.bot-state}") String botStateTopic) {
+        this.clusterEventKafkaTemplate = clusterEventKafkaTemplate;
+        this.clusterCoordinator = clusterCoordinator;
+        this.topic = topic;
+        this.botStateTopic = botStateTopic;
+    }
+
+    /**
+     * 轉送 outbox 中的 Bot 變更通知並更新機器人狀態，所有訊息都確認寫入後才完成
+     *
+     * @param events 依寫入順序排列的變更通知，以機器人 ID 為 key，同一機器人的通知維持順序
+     * @param bots 通知涉及的機器人目前的資料，已刪除的機器人不在其中
+     * @return 全部寫入成功時完成，任一筆失敗時以該例外結束
+     */
+    public CompletableFuture<Void> publishBotChanges(List<ClusterEvent> events, Map<Long, BotEntity> bots) {
+        if (events.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        log.debug("轉送 {} 筆 Bot 更新通知", events.size());
+        List<CompletableFuture<?>> sends = new ArrayList<>(events.size() * 2);
+        // 狀態以目前的資料為準，同一機器人只需寫入一次
+        Set<Long> botIds = new LinkedHashSet<>();
+        events.forEach(event -> botIds.add(event.botId()));
+        for (Long botId : botIds) {
+            BotEntity bot = bots.get(botId);
+            sends.add(bot == null ? sendTombstone(botId) : sendState(bot));
+        }
+        events.forEach(event -> sends.add(send(event)));
+        return CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * 將啟用中機器人的目前狀態寫入 bot-state 主題，主題尚無資料時用來建立初始內容；送出後立即 flush，不等待 linger
+     *
+     * @param bots 啟用中的機器人
+     * @return 全部寫入成功時完成，任一筆失敗時以該例外結束
+     */
+    public CompletableFuture<Void> publishBotStates(Collection<BotEntity> bots) {
+        log.info("寫入 {} 筆機器人狀態", bots.size());
+        CompletableFuture<?>[] sends = bots.stream().map(this::sendState).toArray(CompletableFuture[]::new);
+        clusterEventKafkaTemplate.flush();
+        return CompletableFuture.allOf(sends);
+    }
+
+    /**
+     * 發送 Webhook 註冊通知
+     */
+    public void publishWebhookRegistered(BotEntity bot) {
+        log.info("發送 Webhook 註冊通知: {}", bot.getUsername());
+        send(ClusterEvent.webhookRegistered(bot.getId(), bot.getUsername(), clusterCoordinator.getNodeId()));
+    }
+
+    /**
+     * 發送多筆 Webhook 註冊通知
+     */
+    public void publishWebhooksRegistered(Collection<BotEntity> bots) {
+        if (bots.isEmpty()) {
+            return;
+        }
+        log.info("發送 {} 筆 Webhook 註冊通知", bots.size());
+        String origin = clusterCoordinator.getNodeId();
+        bots.forEach(bot -> send(ClusterEvent.webhookRegistered(bot.getId(), bot.getUsername(), origin)));
+    }
+
+    /**
+     * 通知所有節點清除機器人快取並重新載入路由表
+     */
+    public void publishCacheClear() {
+        log.info("發送清除所有快取通知");
+        send(ClusterEvent.cacheCleared(clusterCoordinator.getNodeId()));
+    }
+
+    /**
+     * 啟用中的機器人寫入目前狀態，停用時寫入 tombstone，壓縮後只留下最新的一筆
+     */
+    private CompletableFuture<?> sendState(BotEntity bot) {
+        if (!Boolean.TRUE.equals(bot.getEnable())) {
+            return sendTombstone(bot.getId());
+        }
+        BotRoute route = BotRoute.of(bot);
+        return clusterEventKafkaTemplate.send(botStateTopic, String.valueOf(route.id()), BotStateCodec.encode(route))
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        log.error("Publishing state of bot {} failed with message: {}",
+                                route.username(), e.getMessage(), e);
+                    }
+                });
+    }
+
+    private CompletableFuture<?> sendTombstone(Long botId) {
+        return clusterEventKafkaTemplate.send(botStateTopic, String.valueOf(botId), null)
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        log.error("Publishing tombstone of bot {} failed with message: {}", botId, e.getMessage(), e);
+                    }
+                });
+    }
+
+    private CompletableFuture<?> send(ClusterEvent event) {
+        return clusterEventKafkaTemplate.send(topic, event.key(), ClusterEventCodec.encode(event))
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        log.error("Publishing cluster event {} failed with message: {}", event, e.getMessage(), e);
+                    }
+                });
+    }
+}
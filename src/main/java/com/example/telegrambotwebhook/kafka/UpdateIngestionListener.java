@@ -0,0 +1,84 @@
+package com.example.telegrambotwebhook.kafka;
+
+import com.example.telegrambotwebhook.config.KafkaConfig;
+import com.example.telegrambotwebhook.service.MessageHandlerService;
+import com.example.telegrambotwebhook.service.UpdateDeduplicator;
+import com.example.telegrambotwebhook.update.UpdateEnvelope;
+import com.example.telegrambotwebhook.update.UpdateEnvelopeParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "telegram-bot.ingestion", name = "mode", havingValue = "kafka")
+public class UpdateIngestionListener {
+
+    private final MessageHandlerService messageHandlerService;
+    private final UpdateEnvelopeParser updateEnvelopeParser;
+    private final UpdateDeduplicator updateDeduplicator;
+    private final Counter processedCounter;
+    private final Counter malformedCounter;
+    private final Counter failedCounter;
+    private final Counter duplicateCounter;
+
+    public UpdateIngestionListener(MessageHandlerService messageHandlerService,
+                                   UpdateEnvelopeParser updateEnvelopeParser, UpdateDeduplicator updateDeduplicator,
+                                   MeterRegistry meterRegistry) {
+        this.messageHandlerService = messageHandlerService;
+        this.updateEnvelopeParser = updateEnvelopeParser;
+        this.updateDeduplicator = updateDeduplicator;
+        this.processedCounter = recordsCounter(meterRegistry, "processed");
+        this.malformedCounter = recordsCounter(meterRegistry, "malformed");
+        this.failedCounter = recordsCounter(meterRegistry, "failed");
+        this.duplicateCounter = recordsCounter(meterRegistry, "duplicate");
+    }
+
+    private static Counter recordsCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("telegram.kafka.ingest.records")
+                .description("Kafka 模式下消費的更新數量")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(topics = "${kafka.topic.update-ingest}",
+            containerFactory = KafkaConfig.UPDATE_LISTENER_CONTAINER_FACTORY)
+    public void onUpdates(List<ConsumerRecord<String, byte[]>> records) {
+        log.debug("Received {} updates from Kafka", records.size());
+
+        // 同一分區內依序處理，以保持同一聊天室的更新順序；
+        // 重送的更新與原本的更新有相同的 key，會落在同一分區，由同一個消費者去除重複
+        for (ConsumerRecord<String, byte[]> record : records) {
+            String username = UpdateIngestionProducer.usernameOf(record.key());
+            try {
+                UpdateEnvelope envelope = updateEnvelopeParser.parse(record.value());
+                if (envelope.getUpdateId() == null) {
+                    malformedCounter.increment();
+                    log.error("Skipping update without update_id at {}-{}@{}",
+                            record.topic(), record.partition(), record.offset());
+                    continue;
+                }
+                if (!updateDeduplicator.markIfNew(username, envelope.getUpdateId())) {
+                    duplicateCounter.increment();
+                    continue;
+                }
+                messageHandlerService.processUpdateAndReply(username, envelope);
+                processedCounter.increment();
+            } catch (IOException e) {
+                malformedCounter.increment();
+                log.error("Skipping malformed update at {}-{}@{}: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+            } catch (Exception e) {
+                failedCounter.increment();
+                log.error("Processing update for bot {} at offset {} failed with message: {}",
+                        username, record.offset(), e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.telegrambotwebhook.kafka;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class UpdateIngestionProducer {
+
+    private final KafkaTemplate<String, byte[]> updateKafkaTemplate;
+    private final String topic;
+    private final long publishTimeoutMs;
+
+    public UpdateIngestionProducer(@Qualifier("updateKafkaTemplate") KafkaTemplate<String, byte[]> updateKafkaTemplate,
+                                   @Value("${kafka.topic.update-ingest}") String topic,
+                                   @Value("${kafka.update-ingest.publish-timeout-ms}") long publishTimeoutMs) {
+        this.updateKafkaTemplate = updateKafkaTemplate;
+        this.topic = topic;
+        this.publishTimeoutMs = publishTimeoutMs;
+    }
+
+    /**
+     * 將原始更新內容寫入 Kafka，以 Bot 與聊天室為 key 確保同一聊天室落在同一分區
+     *
+     * @param username Bot 的使用者名稱
+     * @param chatId 聊天室 ID
+     * @param payload 原始的更新 JSON
+     * @return 是否已成功寫入
+     */
+    public boolean publish(String username, long chatId, byte[] payload) {
+        try {
+            updateKafkaTemplate.send(topic, keyOf(username, chatId), payload)
+                    .get(publishTimeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Publishing update for bot {} failed with message: {}", username, e.getMessage(), e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    static String keyOf(String username, long chatId) {
+        return username + ":" + chatId;
+    }
+
+    /**
+     * 從 key 取回 Bot 的使用者名稱
+     */
+    static String usernameOf(String key) {
+        int separator = key.indexOf(':');
+        return separator < 0 ? key : key.substring(0, separator);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.telegrambotwebhook.kafka.handler;
+
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.event.BotChangeEvent;
+import com.example.telegrambotwebhook.event.ClusterEvent;
+import com.example.telegrambotwebhook.kafka.ClusterEventHandler;
+import com.example.telegrambotwebhook.routing.BotRoute;
+import com.example.telegrambotwebhook.service.BotManager;
+import com.example.telegrambotwebhook.service.BotRoutingTable;
+import com.example.telegrambotwebhook.service.BotService;
+import com.example.telegrambotwebhook.service.ClusterCoordinator;
+import com.example.telegrambotwebhook.service.TelegramBotRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 依機器人變更清除快取、更新路由表，並移除使用舊資料的機器人實例；
+ * 持有 webhook 租約的節點另依其他節點的變更註冊或取消 webhook
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BotChangedEventHandler implements ClusterEventHandler {
+
+    private final BotService botService;
+    private final TelegramBotRegistry telegramBotRegistry;
+    private final BotRoutingTable botRoutingTable;
+    private final BotManager botManager;
+    private final ClusterCoordinator clusterCoordinator;
+
+    @Override
+    public ClusterEvent.Type getType() {
+        return ClusterEvent.Type.BOT_CHANGED;
+    }
+
+    @Override
+    public void handle(List<ClusterEvent> events) {
+        List<BotChangeEvent> changes = events.stream().map(ClusterEvent::toBotChangeEvent).toList();
+        boolean owner = clusterCoordinator.isWebhookOwner();
+        // 資料列已刪除，套用前先從路由表取得取消 webhook 所需的 token
+        List<BotEntity> deleted = owner ? deletedBots(changes) : List.of();
+
+        log.debug("Applying {} bot changes", changes.size());
+        botService.applyBotChanges(changes);
+
+        for (BotChangeEvent event : changes) {
+            if (event.oldUsername() != null) {
+                telegramBotRegistry.remove(event.oldUsername());
+            }
+            if (event.deleted() || (event.oldUsername() != null && !event.oldUsername().equals(event.newUsername()))) {
+                telegramBotRegistry.remove(event.newUsername());
+            }
+        }
+
+        if (owner) {
+            reconcileWebhooks(changes, deleted);
+        }
+    }
+
+    private List<BotEntity> deletedBots(List<BotChangeEvent> changes) {
+        List<BotEntity> deleted = new ArrayList<>();
+        for (BotChangeEvent event : changes) {
+            BotRoute route = event.deleted() ? botRoutingTable.lookup(event.newUsername()) : null;
+            if (route != null && route.id().equals(event.botId())) {
+                deleted.add(BotEntity.builder()
+                        .id(route.id())
+                        .username(route.username())
+                        .token(route.token())
+                        .commands(route.commands())
+                        .build());
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 以資料庫目前的狀態決定註冊或取消，重複收到同一事件時不會重複呼叫 Telegram
+     */
+    private void reconcileWebhooks(List<BotChangeEvent> changes, List<BotEntity> deleted) {
+        List<BotEntity> register = new ArrayList<>();
+        List<BotEntity> deregister = new ArrayList<>();
+        for (BotEntity bot : deleted) {
+            if (botManager.isWebhookRegistered(bot.getUsername())) {
+                deregister.add(bot);
+            }
+        }
+
+        changes.stream()
+                .filter(event -> !event.deleted())
+                .map(BotChangeEvent::botId)
+                .distinct()
+                .forEach(botId -> botService.getBotById(botId).ifPresent(bot -> {
+                    boolean registered = botManager.isWebhookRegistered(bot.getUsername());
+                    boolean enabled = Boolean.TRUE.equals(bot.getEnable());
+                    if (enabled && !registered) {
+                        register.add(bot);
+                    } else if (!enabled && registered) {
+                        deregister.add(bot);
+                    }
+                }));
+
+        if (!register.isEmpty()) {
+            log.info("Registering {} webhooks changed on other nodes", register.size());
+            botManager.registerWebhooks(register);
+        }
+        if (!deregister.isEmpty()) {
+            log.info("Deregistering {} webhooks changed on other nodes", deregister.size());
+            // 取消 webhook 時仍需要實例呼叫 API，完成後才移除
+            botManager.deregisterWebhooks(deregister).whenComplete((progress, e) ->
+                    deregister.forEach(bot -> telegramBotRegistry.remove(bot.getUsername())));
+        }
+    }
+}
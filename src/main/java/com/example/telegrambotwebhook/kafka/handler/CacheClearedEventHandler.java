@@ -0,0 +1,34 @@
+package com.example.telegrambotwebhook.kafka.handler;
+
+import com.example.telegrambotwebhook.event.ClusterEvent;
+import com.example.telegrambotwebhook.kafka.ClusterEventHandler;
+import com.example.telegrambotwebhook.service.BotRoutingTable;
+import com.example.telegrambotwebhook.service.BotService;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 清除所有機器人快取並重新載入路由表，同一批次中的多次請求只執行一次
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheClearedEventHandler implements ClusterEventHandler {
+
+    private final BotService botService;
+    private final BotRoutingTable botRoutingTable;
+
+    @Override
+    public ClusterEvent.Type getType() {
+        return ClusterEvent.Type.CACHE_CLEARED;
+    }
+
+    @Override
+    public void handle(List<ClusterEvent> events) {
+        log.info("Received {} cache clear events from {}", events.size(), events.get(0).origin());
+        botService.evictAllBotCache();
+        botRoutingTable.reload();
+    }
+}
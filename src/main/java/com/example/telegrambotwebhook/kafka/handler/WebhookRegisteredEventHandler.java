@@ -0,0 +1,33 @@
+package com.example.telegrambotwebhook.kafka.handler;
+
+import com.example.telegrambotwebhook.event.ClusterEvent;
+import com.example.telegrambotwebhook.kafka.ClusterEventHandler;
+import com.example.telegrambotwebhook.service.BotManager;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 同步其他節點完成的 Webhook 註冊狀態
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WebhookRegisteredEventHandler implements ClusterEventHandler {
+
+    private final BotManager botManager;
+
+    @Override
+    public ClusterEvent.Type getType() {
+        return ClusterEvent.Type.WEBHOOK_REGISTERED;
+    }
+
+    @Override
+    public void handle(List<ClusterEvent> events) {
+        for (ClusterEvent event : events) {
+            botManager.updateLocalWebhookStatus(event.username(), true);
+            log.info("Bot {} 的本地 webhook 註冊狀態已更新", event.username());
+        }
+    }
+}
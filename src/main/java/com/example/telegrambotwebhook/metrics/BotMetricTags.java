@@ -0,0 +1,53 @@
+package com.example.telegrambotwebhook.metrics;
+
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+
+/**
+ * 決定指標上的 bot 標籤值，限制標籤基數：
+ * 有設定 tagged-bots 時只有名單內的機器人使用自己的標籤，否則最先出現的 max-tagged-bots 個機器人使用自己的標籤，
+ * 其餘一律歸入 {@link #OTHER}
+ */
+@Component
+public class BotMetricTags {
+
+    public static final String TAG = "bot";
+    public static final String OTHER = "other";
+
+    private final Set<String> allowList;
+    private final int maxTaggedBots;
+    private final Map<String, String> tagged = new ConcurrentHashMap<>();
+    private final AtomicInteger taggedCount = new AtomicInteger();
+
+    public BotMetricTags(TelegramBotConfig telegramBotConfig) {
+        TelegramBotConfig.Metrics metrics = telegramBotConfig.getMetrics();
+        this.allowList = Set.copyOf(metrics.getTaggedBots());
+        this.maxTaggedBots = metrics.getMaxTaggedBots();
+    }
+
+    /**
+     * 取得機器人對應的標籤值
+     *
+     * @param username 機器人使用者名稱
+     * @return 使用者名稱，或超出上限時的 {@link #OTHER}
+     */
+    public String of(String username) {
+        if (!allowList.isEmpty()) {
+            return allowList.contains(username) ? username : OTHER;
+        }
+
+        String tag = tagged.get(username);
+        if (tag != null) {
+            return tag;
+        }
+        if (taggedCount.get() >= maxTaggedBots) {
+            return OTHER;
+        }
+        return tagged.computeIfAbsent(username,
+                key -> taggedCount.getAndIncrement() < maxTaggedBots ? key : OTHER);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.telegrambotwebhook.repository;
+
+import com.example.telegrambotwebhook.entity.BotOutboxEntity;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BotOutboxRepository extends JpaRepository<BotOutboxEntity, Long> {
+
+    /**
+     * 依寫入順序鎖定最舊的一批通知，需在交易內呼叫，送出並刪除前其他轉送者會等待
+     */
+    @Query(value = "SELECT * FROM bot_outbox ORDER BY id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<BotOutboxEntity> lockOldest(@Param("limit") int limit);
+}
@@ -1,9 +1,15 @@
 package com.example.telegrambotwebhook.repository;
 
+import com.example.telegrambotwebhook.dto.BotSummary;
+import com.example.telegrambotwebhook.dto.BotVersion;
 import com.example.telegrambotwebhook.entity.BotEntity;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -11,5 +17,32 @@ public interface BotRepository extends JpaRepository<BotEntity, Long> {
 
     List<BotEntity> findByEnableTrue();
 
+    /**
+     * 啟用中機器人的 ID 與版本號，不讀取 token 等其他欄位
+     */
+    @Query("SELECT new com.example.telegrambotwebhook.dto.BotVersion(b.id, COALESCE(b.version, 0)) "
+            + "FROM BotEntity b WHERE b.enable = true")
+    List<BotVersion> findEnabledVersions();
+
     Optional<BotEntity> findByUsername(String username);
+
+    List<BotEntity> findByUsernameIn(Collection<String> usernames);
+
+    /**
+     * 以 ID 為游標取得下一頁機器人，只查詢清單需要的欄位
+     *
+     * @param afterId 上一頁最後一筆的 ID
+     * @param enable 啟用狀態，null 表示不篩選
+     * @param usernamePattern 使用者名稱的 LIKE 條件，特殊字元需以反斜線跳脫，null 表示不篩選
+     * @param limit 最多筆數
+     */
+    @Query("SELECT new com.example.telegrambotwebhook.dto.BotSummary(b.id, b.username, b.enable, b.commands, b.version) "
+            + "FROM BotEntity b WHERE b.id > :afterId "
+            + "AND (:enable IS NULL OR b.enable = :enable) "
+            + "AND (:usernamePattern IS NULL OR b.username LIKE :usernamePattern ESCAPE '\\') "
+            + "ORDER BY b.id")
+    List<BotSummary> findSummariesAfter(@Param("afterId") long afterId,
+                                        @Param("enable") Boolean enable,
+                                        @Param("usernamePattern") String usernamePattern,
+                                        Limit limit);
 }
@@ -0,0 +1,50 @@
+package com.example.telegrambotwebhook.repository;
+
+import com.example.telegrambotwebhook.entity.ClusterLeaseEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ClusterLeaseRepository extends JpaRepository<ClusterLeaseEntity, String> {
+
+    /**
+     * 建立租約列（已存在時略過），初始為已過期
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO cluster_leases (name, owner, expires_at) "
+            + "VALUES (:name, '', CURRENT_TIMESTAMP(3))", nativeQuery = true)
+    int createIfAbsent(@Param("name") String name);
+
+    /**
+     * 由目前持有者續約，或在租約過期時取得租約，時間以資料庫時鐘為準
+     *
+     * @return 1 表示取得或續約成功
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE cluster_leases "
+            + "SET owner = :owner, expires_at = TIMESTAMPADD(MICROSECOND, :ttlMs * 1000, CURRENT_TIMESTAMP(3)) "
+            + "WHERE name = :name AND (owner = :owner OR expires_at < CURRENT_TIMESTAMP(3))", nativeQuery = true)
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner, @Param("ttlMs") long ttlMs);
+
+    /**
+     * 釋放自己持有的租約，讓其他節點可立即接手
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE cluster_leases SET expires_at = CURRENT_TIMESTAMP(3) "
+            + "WHERE name = :name AND owner = :owner", nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner);
+
+    /**
+     * 計算名稱以指定前綴開頭、尚未過期的其他租約數量
+     */
+    @Query(value = "SELECT COUNT(*) FROM cluster_leases WHERE name LIKE CONCAT(:prefix, '%') "
+            + "AND name <> :name AND expires_at > CURRENT_TIMESTAMP(3)", nativeQuery = true)
+    long countLiveExcept(@Param("prefix") String prefix, @Param("name") String name);
+}
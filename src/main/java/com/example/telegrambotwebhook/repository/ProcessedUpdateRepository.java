@@ -0,0 +1,42 @@
+package com.example.telegrambotwebhook.repository;
+
+import com.example.telegrambotwebhook.entity.ProcessedUpdateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ProcessedUpdateRepository extends JpaRepository<ProcessedUpdateEntity, String> {
+
+    /**
+     * 記錄更新已處理
+     *
+     * @return 1 表示第一次處理，0 表示其他節點已處理過
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO processed_updates (update_key, processed_at) "
+            + "VALUES (:updateKey, CURRENT_TIMESTAMP(3))", nativeQuery = true)
+    int markProcessed(@Param("updateKey") String updateKey);
+
+    /**
+     * 取消處理記錄，讓 Telegram 重送時可以再次處理
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM processed_updates WHERE update_key = :updateKey", nativeQuery = true)
+    int unmark(@Param("updateKey") String updateKey);
+
+    /**
+     * 刪除超過保留時間的記錄
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM processed_updates "
+            + "WHERE processed_at < TIMESTAMPADD(MINUTE, -:retentionMinutes, CURRENT_TIMESTAMP(3)) LIMIT 10000",
+            nativeQuery = true)
+    int deleteExpired(@Param("retentionMinutes") long retentionMinutes);
+}
@@ -0,0 +1,12 @@
+package com.example.telegrambotwebhook.repository;
+
+import com.example.telegrambotwebhook.entity.WebhookRegistrationEntity;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WebhookRegistrationRepository extends JpaRepository<WebhookRegistrationEntity, String> {
+
+    List<WebhookRegistrationEntity> findByRegisteredTrue();
+}
@@ -0,0 +1,20 @@
+package com.example.telegrambotwebhook.routing;
+
+import com.example.telegrambotwebhook.entity.BotEntity;
+
+/**
+ * 路由表中的單一機器人，只保留處理更新所需的欄位；路由表只收錄啟用中的機器人
+ *
+ * @param id 機器人 ID
+ * @param username 機器人使用者名稱
+ * @param token 機器人 token
+ * @param commands 啟用的指令設定，null 表示全部
+ * @param version 資料版本號
+ */
+public record BotRoute(Long id, String username, String token, String commands, long version) {
+
+    public static BotRoute of(BotEntity bot) {
+        return new BotRoute(bot.getId(), bot.getUsername(), bot.getToken(), bot.getCommands(),
+                bot.getVersion() == null ? 0L : bot.getVersion());
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.telegrambotwebhook.service;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+
+/**
+ * 所有機器人共用的 Bot API 傳輸層，呼叫以非同步方式完成，不佔用呼叫端執行緒
+ */
+public interface BotApiTransport {
+    /**
+     * 呼叫 Bot API
+     *
+     * @param token 機器人 token
+     * @param method API 方法
+     * @return 完成時為回應結果；API 回傳錯誤時以 TelegramApiRequestException 失敗，保留 error_code 與 retry_after
+     */
+    <T extends Serializable> CompletableFuture<T> executeAsync(String token, BotApiMethod<T> method);
+
+    /**
+     * 設定 Webhook，不支援上傳自簽憑證
+     *
+     * @param token 機器人 token
+     * @param setWebhook Webhook 設定資訊
+     * @return 完成時為 API 回傳的結果
+     */
+    CompletableFuture<Boolean> setWebhookAsync(String token, SetWebhook setWebhook);
+}
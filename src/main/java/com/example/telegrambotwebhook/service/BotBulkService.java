@@ -0,0 +1,35 @@
+package com.example.telegrambotwebhook.service;
+
+import com.example.telegrambotwebhook.dto.BotBulkResponse;
+import com.example.telegrambotwebhook.entity.BotEntity;
+import java.util.List;
+
+/**
+ * 批次管理機器人：資料以 JDBC 批次寫入，Webhook 以有限並行數註冊，變更合併為一則通知
+ */
+public interface BotBulkService {
+    /**
+     * 批次建立機器人，使用者名稱重複的項目不會寫入
+     */
+    BotBulkResponse createBots(List<BotEntity> bots);
+
+    /**
+     * 批次更新機器人資訊
+     */
+    BotBulkResponse updateBots(List<BotEntity> bots);
+
+    /**
+     * 批次啟用機器人
+     */
+    BotBulkResponse enableBots(List<Long> ids);
+
+    /**
+     * 批次停用機器人
+     */
+    BotBulkResponse disableBots(List<Long> ids);
+
+    /**
+     * 批次刪除機器人
+     */
+    BotBulkResponse deleteBots(List<Long> ids);
+}
@@ -0,0 +1,26 @@
+package com.example.telegrambotwebhook.service;
+
+import com.example.telegrambotwebhook.event.BotChangeEvent;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 機器人變更通知的 outbox，與資料變更在同一交易寫入，提交後由轉送程序送到 Kafka
+ */
+public interface BotChangeOutbox {
+    /**
+     * 寫入一筆變更通知，必須在寫入機器人資料的交易內呼叫
+     *
+     * @param event 機器人變更通知
+     */
+    default void append(BotChangeEvent event) {
+        appendAll(List.of(event));
+    }
+
+    /**
+     * 以批次寫入多筆變更通知，必須在寫入機器人資料的交易內呼叫
+     *
+     * @param events 機器人變更通知
+     */
+    void appendAll(Collection<BotChangeEvent> events);
+}
@@ -1,15 +1,18 @@
 package com.example.telegrambotwebhook.service;
 
+import com.example.telegrambotwebhook.dto.WebhookRegistrationProgress;
 import com.example.telegrambotwebhook.entity.BotEntity;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 public interface BotManager {
     /**
-     * 初始化所有啟用的 Bot 的 Webhook
+     * 初始化所有啟用的 Bot 的 Webhook，於背景批次註冊
      */
     void init();
 
     /**
-     * 系統關閉時取消所有的 Webhook 註冊
+     * 系統關閉時，若本節點是最後一個存活且負責註冊的節點，以有限的並行數取消所有的 Webhook 註冊
      */
     void deregisterAllWebhooks();
 
@@ -21,6 +24,26 @@ public interface BotManager {
      */
     boolean registerWebhook(BotEntity botEntity);
 
+    /**
+     * 以有限的並行數批次註冊多個機器人的 Webhook，包含逾時與重試
+     *
+     * @param botEntities 機器人實體
+     * @return 全部處理完成後的註冊結果
+     */
+    CompletableFuture<WebhookRegistrationProgress> registerWebhooks(Collection<BotEntity> botEntities);
+
+    /**
+     * 取得最近一次批次註冊的進度
+     *
+     * @return 註冊進度，尚未執行過批次註冊時回傳 null
+     */
+    WebhookRegistrationProgress getRegistrationProgress();
+
+    /**
+     * 啟動時的批次註冊是否已完成
+     */
+    boolean isInitialRegistrationComplete();
+
     /**
      * 取消註冊機器人的 Webhook
      *
@@ -29,6 +52,14 @@ public interface BotManager {
      */
     boolean deregisterWebhook(String username);
 
+    /**
+     * 以與批次註冊相同的並行數上限取消多個機器人的 Webhook，不影響批次註冊進度
+     *
+     * @param botEntities 機器人實體，已從資料庫刪除的機器人也可傳入
+     * @return 全部處理完成後的結果
+     */
+    CompletableFuture<WebhookRegistrationProgress> deregisterWebhooks(Collection<BotEntity> botEntities);
+
     /**
      * 檢查機器人的 Webhook 是否已註冊
      *
@@ -0,0 +1,95 @@
+package com.example.telegrambotwebhook.service;
+
+import com.example.telegrambotwebhook.dto.BotRoutingStatus;
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.event.BotChangeEvent;
+import com.example.telegrambotwebhook.routing.BotRoute;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 啟用中機器人的記憶體路由表，webhook 處理時直接查詢而不經過資料庫或快取
+ */
+public interface BotRoutingTable {
+    /**
+     * 查詢啟用中的機器人，不加鎖也不會過期
+     *
+     * @param username 機器人使用者名稱
+     * @return 路由資料，未啟用或不存在時回傳 null
+     */
+    BotRoute lookup(String username);
+
+    /**
+     * 以已儲存的機器人資料更新路由表，停用的機器人會被移除
+     *
+     * @param bot 機器人實體
+     */
+    default void upsert(BotEntity bot) {
+        upsertAll(List.of(bot));
+    }
+
+    /**
+     * 以多筆已儲存的機器人資料更新路由表，只替換一次快照
+     *
+     * @param bots 機器人實體
+     */
+    void upsertAll(Collection<BotEntity> bots);
+
+    /**
+     * 套用變更通知，版本號不比路由表新的事件會被忽略
+     *
+     * @param event 機器人變更通知
+     */
+    default void apply(BotChangeEvent event) {
+        applyAll(List.of(event));
+    }
+
+    /**
+     * 套用多筆變更通知，需要重新讀取的機器人一次查詢，只替換一次快照
+     *
+     * @param events 機器人變更通知
+     */
+    default void applyAll(Collection<BotChangeEvent> events) {
+        applyAll(events, List.of());
+    }
+
+    /**
+     * 套用多筆變更通知，已取得最新資料的機器人直接套用，其餘一次查詢，只替換一次快照
+     *
+     * @param events 機器人變更通知
+     * @param loaded 剛儲存的機器人實體，版本號不比事件舊時不再查詢資料庫
+     */
+    void applyAll(Collection<BotChangeEvent> events, Collection<BotEntity> loaded);
+
+    /**
+     * 從資料庫重新載入所有啟用中的機器人
+     */
+    void reload();
+
+    /**
+     * 目前收錄的機器人數量
+     */
+    int size();
+
+    /**
+     * 路由表版本，每次套用變更遞增
+     */
+    long getGeneration();
+
+    /**
+     * 最後一次套用變更的時間
+     */
+    Instant getLastAppliedAt();
+
+    /**
+     * 路由表狀態
+     */
+    default BotRoutingStatus getStatus() {
+        return BotRoutingStatus.builder()
+                .size(size())
+                .generation(getGeneration())
+                .lastAppliedAt(getLastAppliedAt())
+                .build();
+    }
+}
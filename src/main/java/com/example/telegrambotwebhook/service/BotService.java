@@ -1,8 +1,13 @@
 package com.example.telegrambotwebhook.service;
 
+import com.example.telegrambotwebhook.dto.BotPage;
+import com.example.telegrambotwebhook.dto.BotSummary;
 import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.event.BotChangeEvent;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BotService {
     /**
@@ -10,6 +15,25 @@ public interface BotService {
      */
     List<BotEntity> getAllBots();
 
+    /**
+     * 以 ID 為游標分頁查詢機器人，不含 Token
+     *
+     * @param afterId 上一頁回傳的游標，null 表示第一頁
+     * @param limit 每頁筆數
+     * @param enable 啟用狀態，null 表示不篩選
+     * @param usernamePrefix 使用者名稱前綴，空白表示不篩選
+     */
+    BotPage listBots(Long afterId, int limit, Boolean enable, String usernamePrefix);
+
+    /**
+     * 以資料庫游標逐筆讀取符合條件的機器人，不會一次載入全部資料
+     *
+     * @param enable 啟用狀態，null 表示不篩選
+     * @param usernamePrefix 使用者名稱前綴，空白表示不篩選
+     * @param consumer 每讀到一筆就呼叫一次
+     */
+    void exportBots(Boolean enable, String usernamePrefix, Consumer<BotSummary> consumer);
+
     /**
      * 獲取所有啟用的機器人
      */
@@ -42,13 +66,17 @@ public interface BotService {
 
     /**
      * 啟用機器人
+     *
+     * @return 啟用後的機器人，找不到時回傳 null
      */
-    void enableBot(Long id);
+    BotEntity enableBot(Long id);
 
     /**
      * 停用機器人
+     *
+     * @return 停用後的機器人，找不到時回傳 null
      */
-    void disableBot(Long id);
+    BotEntity disableBot(Long id);
 
     /**
      * 刪除機器人
@@ -56,14 +84,19 @@ public interface BotService {
     void deleteBot(Long id);
 
     /**
-     * 清除特定使用者名稱的機器人快取
+     * 依變更通知清除受影響的快取項目，版本號不比快取內容新的事件會被忽略
+     */
+    void applyBotChange(BotChangeEvent event);
+
+    /**
+     * 依多筆變更通知清除快取，路由表只更新一次
      */
-    void evictBotCache(String username);
+    void applyBotChanges(Collection<BotChangeEvent> events);
 
     /**
-     * 清除特定ID的機器人快取
+     * 套用本節點剛提交的變更，路由表直接使用已儲存的實體而不重新查詢資料庫
      */
-    void evictBotCacheById(Long id);
+    void applyBotChanges(Collection<BotChangeEvent> events, Collection<BotEntity> saved);
 
     /**
      * 清除所有機器人快取
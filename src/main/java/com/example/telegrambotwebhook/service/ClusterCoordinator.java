@@ -0,0 +1,33 @@
+package com.example.telegrambotwebhook.service;
+
+public interface ClusterCoordinator {
+    /**
+     * 是否為多節點租約模式
+     */
+    boolean isClustered();
+
+    /**
+     * 本節點是否負責 webhook 註冊，單節點模式下永遠為 true
+     */
+    boolean isWebhookOwner();
+
+    /**
+     * 本節點的識別名稱
+     */
+    String getNodeId();
+
+    /**
+     * 嘗試取得或續約 webhook 註冊租約，並回報本節點存活
+     */
+    void renewLease();
+
+    /**
+     * 是否還有其他存活的節點，單節點模式下永遠為 false；無法確認時視為有
+     */
+    boolean hasOtherLiveNodes();
+
+    /**
+     * 停止回報本節點存活，關閉時呼叫，其他節點不再將本節點計入
+     */
+    void leave();
+}
@@ -1,15 +1,23 @@
 package com.example.telegrambotwebhook.service;
 
+import com.example.telegrambotwebhook.update.UpdateEnvelope;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
-import org.telegram.telegrambots.meta.api.objects.Update;
 
 public interface MessageHandlerService {
     /**
      * 處理來自 Telegram 的更新
      *
      * @param username Bot 的使用者名稱
-     * @param update Telegram 的更新內容
+     * @param envelope Telegram 的更新內容
      * @return 處理結果
      */
-    BotApiMethod<?> processUpdate(String username, Update update);
+    BotApiMethod<?> processUpdate(String username, UpdateEnvelope envelope);
+
+    /**
+     * 處理來自 Telegram 的更新，並透過 Bot API 發送回覆
+     *
+     * @param username Bot 的使用者名稱
+     * @param envelope Telegram 的更新內容
+     */
+    void processUpdateAndReply(String username, UpdateEnvelope envelope);
 }
@@ -0,0 +1,28 @@
+package com.example.telegrambotwebhook.service;
+
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+
+public interface OutboundMessageScheduler {
+    /**
+     * 排程發送 Bot API 方法，依 Telegram 對每個 Bot 與每個聊天室的速率限制送出；
+     * 同一聊天室的訊息依提交順序逐一送出，前一則重試時後面的訊息會等待
+     *
+     * @param bot 發送的機器人實例
+     * @param chatId 目標聊天室 ID，0 表示不受聊天室限制
+     * @param method 要發送的 Bot API 方法
+     * @return 聊天室或全部待送訊息已達上限而拒絕時為 false
+     */
+    boolean submit(TelegramBot bot, long chatId, BotApiMethod<?> method);
+
+    /**
+     * 指定機器人尚未送出的訊息數量
+     *
+     * @param username 機器人使用者名稱
+     */
+    int getBacklog(String username);
+
+    /**
+     * 所有機器人尚未送出的訊息數量
+     */
+    int getTotalBacklog();
+}
@@ -1,57 +1,121 @@
 package com.example.telegrambotwebhook.service;
 
+import com.example.telegrambotwebhook.command.CommandDispatcher;
+import com.example.telegrambotwebhook.update.UpdateEnvelope;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramWebhookBot;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
-import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.updates.DeleteWebhook;
 import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
+/**
+ * 單一機器人的常駐實例。函式庫的客戶端 (各自的連線池與執行緒) 只在需要時才建立：
+ * 沒有共用傳輸層，或設定 Webhook 需要上傳憑證時
+ */
 @Slf4j
-public class TelegramBot extends TelegramWebhookBot {
+public class TelegramBot {
 
     @Getter
     private final String botUsername;
     private final String botPath;
+    private final String botToken;
+    @Getter
+    private final String commands;
+    private final CommandDispatcher commandDispatcher;
+    private final BotApiTransport transport;
+    private final DefaultBotOptions options;
+    // 未使用共用傳輸層時，阻塞式呼叫放到此執行器上，避免函式庫每個機器人單一執行緒的限制
+    private final Executor blockingCalls;
+    private Sender sender;
 
-    public TelegramBot(String botToken, String botUsername, String botPath) {
-        super(botToken);
+    /**
+     * @param transport 共用傳輸層，null 時使用函式庫的客戶端
+     * @param blockingCalls 沒有共用傳輸層時執行非同步呼叫的執行器，由呼叫端負責關閉
+     */
+    public TelegramBot(DefaultBotOptions options, String botToken, String botUsername, String botPath,
+                       String commands, CommandDispatcher commandDispatcher, BotApiTransport transport,
+                       Executor blockingCalls) {
+        this.options = options;
+        this.blockingCalls = blockingCalls;
+        this.botToken = botToken;
         this.botUsername = botUsername;
         this.botPath = botPath;
+        this.commands = commands;
+        this.commandDispatcher = commandDispatcher;
+        this.transport = transport;
+    }
+
+    /**
+     * 檢查實例是否仍使用指定的 token 與指令設定
+     *
+     * @param token 機器人 API Token
+     * @param commands 啟用的指令設定
+     * @return 是否相同
+     */
+    public boolean matches(String token, String commands) {
+        return botToken.equals(token) && Objects.equals(this.commands, commands);
     }
 
-    @Override
     public String getBotPath() {
         return botPath;
     }
 
-    @Override
     public BotApiMethod<?> onWebhookUpdateReceived(Update update) {
-        if (update.hasMessage() && update.getMessage().hasText()) {
-            String messageText = update.getMessage().getText();
-            long chatId = update.getMessage().getChatId();
-
-            return handleMessage(chatId, messageText);
-        }
-
-        return null;
+        return commandDispatcher.dispatch(update);
     }
 
-    private SendMessage handleMessage(long chatId, String messageText) {
-        log.info("Bot {} received message: {}", botUsername, messageText);
-        SendMessage message = new SendMessage();
-        message.setChatId(String.valueOf(chatId));
+    /**
+     * 處理更新，交由該機器人的指令表分派；處理器需要時才反序列化完整的 Update
+     *
+     * @param envelope 更新的路由資訊
+     * @return 回覆內容
+     */
+    public BotApiMethod<?> onUpdate(UpdateEnvelope envelope) {
+        log.debug("Bot {} received {} update {}", botUsername, envelope.getType(), envelope.getUpdateId());
+        return commandDispatcher.dispatch(envelope);
+    }
 
-        if (messageText.equals("/start")) {
-            message.setText("您好！歡迎使用 " + botUsername + " Bot。");
-        } else {
-            message.setText("您發送給 " + botUsername + " 的訊息: " + messageText);
+    /**
+     * 非同步呼叫 Bot API，有共用傳輸層時不佔用任何執行緒等待回應
+     *
+     * @param method API 方法
+     * @return 完成時為回應結果，失敗時為 TelegramApiException
+     */
+    public <T extends Serializable> CompletableFuture<T> callAsync(BotApiMethod<T> method) {
+        if (transport != null) {
+            return transport.executeAsync(botToken, method);
         }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return sender().execute(method);
+            } catch (TelegramApiException e) {
+                throw new CompletionException(e);
+            }
+        }, blockingCalls);
+    }
 
-        return message;
+    /**
+     * 呼叫 Bot API 並等待回應
+     *
+     * @param method API 方法
+     * @return 回應結果
+     * @throws TelegramApiException 如果呼叫失敗
+     */
+    public <T extends Serializable> T call(BotApiMethod<T> method) throws TelegramApiException {
+        if (transport == null) {
+            return sender().execute(method);
+        }
+        return await(transport.executeAsync(botToken, method));
     }
 
     /**
@@ -62,7 +126,12 @@ public class TelegramBot extends TelegramWebhookBot {
      */
     public void setWebhook(SetWebhook setWebhook) throws TelegramApiException {
         log.info("Setting webhook for Bot {}, Webhook: {}", botUsername, setWebhook.getUrl());
-        execute(setWebhook);
+        // 共用傳輸層不支援上傳憑證，帶憑證時仍使用函式庫的 multipart 請求
+        if (transport == null || setWebhook.getCertificate() != null) {
+            sender().setWebhook(setWebhook);
+        } else {
+            await(transport.setWebhookAsync(botToken, setWebhook));
+        }
     }
 
     /**
@@ -73,7 +142,68 @@ public class TelegramBot extends TelegramWebhookBot {
     public void deleteWebhook() throws TelegramApiException {
         log.info("Deleting webhook for Bot {}", botUsername);
         DeleteWebhook deleteWebhook = new DeleteWebhook();
-        execute(deleteWebhook);
+        call(deleteWebhook);
         log.info("Bot {} deleted webhook", botUsername);
     }
+
+    /**
+     * 停止函式庫為此實例建立的非同步執行緒，實例被取代或移除時呼叫；進行中的同步呼叫不受影響，
+     * 之後仍有呼叫時會重新建立客戶端
+     */
+    public synchronized void close() {
+        if (sender != null) {
+            sender.close();
+            sender = null;
+        }
+    }
+
+    private synchronized Sender sender() {
+        if (sender == null) {
+            sender = new Sender();
+        }
+        return sender;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws TelegramApiException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TelegramApiException("Interrupted while waiting for Bot API response", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TelegramApiException apiException) {
+                throw apiException;
+            }
+            throw new TelegramApiException(e.getCause());
+        }
+    }
+
+    /**
+     * 函式庫的客戶端，建立時會配置自己的 HTTP 連線池與執行緒池
+     */
+    private final class Sender extends TelegramWebhookBot {
+
+        private Sender() {
+            super(options, botToken);
+        }
+
+        @Override
+        public String getBotUsername() {
+            return botUsername;
+        }
+
+        @Override
+        public String getBotPath() {
+            return botPath;
+        }
+
+        @Override
+        public BotApiMethod<?> onWebhookUpdateReceived(Update update) {
+            return TelegramBot.this.onWebhookUpdateReceived(update);
+        }
+
+        private void close() {
+            exe.shutdown();
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package com.example.telegrambotwebhook.service;
+
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.routing.BotRoute;
+
+public interface TelegramBotRegistry {
+    /**
+     * 取得機器人的常駐實例，尚未建立或 token 已變更時會重新建立
+     *
+     * @param botEntity 機器人實體
+     * @return 常駐的 TelegramBot 實例
+     */
+    default TelegramBot getBot(BotEntity botEntity) {
+        return getBot(BotRoute.of(botEntity));
+    }
+
+    /**
+     * 取得機器人的常駐實例，尚未建立或 token、指令設定已變更時會重新建立
+     *
+     * @param route 路由表中的機器人
+     * @return 常駐的 TelegramBot 實例
+     */
+    TelegramBot getBot(BotRoute route);
+
+    /**
+     * 依最新的機器人資料更新實例，token 與指令設定未變更時沿用既有實例
+     *
+     * @param botEntity 機器人實體
+     * @return 目前的 TelegramBot 實例
+     */
+    TelegramBot refresh(BotEntity botEntity);
+
+    /**
+     * 移除並關閉機器人實例，之後的查詢會重新建立
+     *
+     * @param username 機器人使用者名稱
+     */
+    void remove(String username);
+
+    /**
+     * 移除並關閉所有機器人實例
+     */
+    void clear();
+
+    /**
+     * 目前常駐的實例數量
+     */
+    int size();
+}
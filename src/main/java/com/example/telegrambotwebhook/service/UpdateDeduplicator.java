@@ -0,0 +1,20 @@
+package com.example.telegrambotwebhook.service;
+
+public interface UpdateDeduplicator {
+    /**
+     * 標記更新已接收
+     *
+     * @param username 機器人使用者名稱
+     * @param updateId 更新 ID
+     * @return 第一次接收時為 true，Telegram 重送的更新為 false
+     */
+    boolean markIfNew(String username, int updateId);
+
+    /**
+     * 取消標記，接收後無法處理 (例如佇列已滿) 時呼叫，讓 Telegram 重送時可再次處理
+     *
+     * @param username 機器人使用者名稱
+     * @param updateId 更新 ID
+     */
+    void forget(String username, int updateId);
+}
@@ -0,0 +1,31 @@
+package com.example.telegrambotwebhook.service;
+
+import com.example.telegrambotwebhook.update.UpdateEnvelope;
+
+public interface UpdateDispatcher {
+    /**
+     * 將更新交給背景處理通道，同一個 Bot 與聊天室的更新會依序處理
+     *
+     * @param username Bot 的使用者名稱
+     * @param envelope Telegram 的更新內容
+     * @return 是否成功放入佇列，通道已滿時回傳 false
+     */
+    boolean dispatch(String username, UpdateEnvelope envelope);
+
+    /**
+     * 目前所有通道中等待處理的更新數量
+     */
+    int getQueueDepth();
+
+    /**
+     * 指定通道中等待處理的更新數量
+     *
+     * @param lane 通道編號
+     */
+    int getLaneDepth(int lane);
+
+    /**
+     * 通道數量
+     */
+    int getLaneCount();
+}
@@ -0,0 +1,8 @@
+package com.example.telegrambotwebhook.service;
+
+public interface WebhookIntake {
+    /**
+     * 是否接受新的 webhook 更新，節點開始關閉後為 false，webhook 回傳 503 讓 Telegram 重送到其他節點
+     */
+    boolean isAccepting();
+}
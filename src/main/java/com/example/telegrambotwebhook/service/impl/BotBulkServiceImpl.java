@@ -0,0 +1,465 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import com.example.telegrambotwebhook.dto.BotBulkResponse;
+import com.example.telegrambotwebhook.dto.BotBulkResult;
+import com.example.telegrambotwebhook.dto.BotBulkResult.Status;
+import com.example.telegrambotwebhook.dto.WebhookRegistrationProgress;
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.event.BotChangeEvent;
+import com.example.telegrambotwebhook.kafka.ClusterEventPublisher;
+import com.example.telegrambotwebhook.repository.BotRepository;
+import com.example.telegrambotwebhook.service.BotBulkService;
+import com.example.telegrambotwebhook.service.BotChangeOutbox;
+import com.example.telegrambotwebhook.service.BotManager;
+import com.example.telegrambotwebhook.service.BotService;
+import com.example.telegrambotwebhook.service.ClusterCoordinator;
+import com.example.telegrambotwebhook.service.TelegramBotRegistry;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * 批次寫入不經過 JPA：IDENTITY 主鍵會讓 Hibernate 逐筆 INSERT，這裡改以 JdbcTemplate 批次執行，
+ * 搭配連線參數 rewriteBatchedStatements 合併為多值 INSERT，寫入後在同一交易內依使用者名稱或 ID 讀回產生的主鍵與版本號，
+ * 並將變更通知寫入 outbox。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BotBulkServiceImpl implements BotBulkService {
+
+    private static final int JDBC_BATCH_SIZE = 500;
+    private static final String INSERT_SQL = "INSERT INTO telegram_bots (username, token, enable, commands, version) "
+            + "VALUES (?, ?, ?, ?, 0)";
+    private static final String UPDATE_SQL = "UPDATE telegram_bots "
+            + "SET username = ?, token = ?, enable = ?, commands = ?, version = version + 1 WHERE id = ?";
+    private static final String SET_ENABLE_SQL = "UPDATE telegram_bots SET enable = ?, version = version + 1 WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM telegram_bots WHERE id = ?";
+
+    private final BotRepository botRepository;
+    private final BotService botService;
+    private final BotManager botManager;
+    private final TelegramBotRegistry telegramBotRegistry;
+    private final ClusterEventPublisher clusterEventPublisher;
+    private final ClusterCoordinator clusterCoordinator;
+    private final BotChangeOutbox botChangeOutbox;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public BotBulkResponse createBots(List<BotEntity> bots) {
+        log.info("Bulk creating {} bots", bots.size());
+        BotBulkResult[] results = new BotBulkResult[bots.size()];
+
+        Map<String, Integer> pending = new LinkedHashMap<>();
+        for (int i = 0; i < bots.size(); i++) {
+            BotEntity bot = bots.get(i);
+            if (!StringUtils.hasText(bot.getUsername()) || !StringUtils.hasText(bot.getToken())) {
+                results[i] = result(bot.getId(), bot.getUsername(), Status.INVALID, "username 與 token 為必填");
+            } else if (pending.putIfAbsent(bot.getUsername(), i) != null) {
+                results[i] = result(null, bot.getUsername(), Status.CONFLICT, "同一批次中的使用者名稱重複");
+            }
+        }
+        for (BotEntity existing : findByUsernames(pending.keySet())) {
+            Integer index = pending.remove(existing.getUsername());
+            if (index != null) {
+                results[index] = result(existing.getId(), existing.getUsername(), Status.CONFLICT, "使用者名稱已存在");
+            }
+        }
+
+        List<BotEntity> inserts = pending.values().stream().map(bots::get).toList();
+        Changes changes = new Changes();
+        DataAccessException failure = writeBatch(INSERT_SQL, inserts, (ps, bot) -> {
+            ps.setString(1, bot.getUsername());
+            ps.setString(2, bot.getToken());
+            ps.setObject(3, bot.getEnable(), Types.BOOLEAN);
+            ps.setString(4, bot.getCommands());
+        }, () -> {
+            for (BotEntity saved : findByUsernames(pending.keySet())) {
+                BotBulkResult result = result(saved.getId(), saved.getUsername(), Status.SUCCEEDED, null);
+                results[pending.get(saved.getUsername())] = result;
+                changes.saved(saved, BotChangeEvent.updated(saved, null), result);
+                if (Boolean.TRUE.equals(saved.getEnable())) {
+                    changes.register.add(saved);
+                }
+            }
+            return changes.events;
+        });
+        if (failure != null) {
+            pending.values().forEach(i -> results[i] = failed(bots.get(i).getId(), bots.get(i).getUsername(), failure));
+            return toResponse(results);
+        }
+
+        propagate(changes);
+        return toResponse(results);
+    }
+
+    @Override
+    public BotBulkResponse updateBots(List<BotEntity> bots) {
+        log.info("Bulk updating {} bots", bots.size());
+        BotBulkResult[] results = new BotBulkResult[bots.size()];
+
+        Map<Long, Integer> pending = new LinkedHashMap<>();
+        Map<String, Long> usernames = new HashMap<>();
+        for (int i = 0; i < bots.size(); i++) {
+            BotEntity bot = bots.get(i);
+            if (bot.getId() == null || !StringUtils.hasText(bot.getUsername()) || !StringUtils.hasText(bot.getToken())) {
+                results[i] = result(bot.getId(), bot.getUsername(), Status.INVALID, "id、username 與 token 為必填");
+            } else if (pending.containsKey(bot.getId())
+                    || usernames.putIfAbsent(bot.getUsername(), bot.getId()) != null) {
+                results[i] = result(bot.getId(), bot.getUsername(), Status.CONFLICT, "同一批次中的 ID 或使用者名稱重複");
+            } else {
+                pending.put(bot.getId(), i);
+            }
+        }
+
+        Map<Long, BotEntity> existing = loadExisting(pending, results, bots);
+        for (BotEntity other : findByUsernames(usernames.keySet())) {
+            Long id = usernames.get(other.getUsername());
+            if (!other.getId().equals(id) && pending.containsKey(id)) {
+                int index = pending.remove(id);
+                results[index] = result(id, other.getUsername(), Status.CONFLICT, "使用者名稱已被其他機器人使用");
+            }
+        }
+
+        List<BotEntity> updates = pending.values().stream().map(bots::get).toList();
+        Changes changes = new Changes();
+        DataAccessException failure = writeBatch(UPDATE_SQL, updates, (ps, bot) -> {
+            ps.setString(1, bot.getUsername());
+            ps.setString(2, bot.getToken());
+            ps.setObject(3, bot.getEnable(), Types.BOOLEAN);
+            ps.setString(4, bot.getCommands());
+            ps.setLong(5, bot.getId());
+        }, () -> {
+            for (BotEntity saved : reload(pending, results, bots)) {
+                BotEntity previous = existing.get(saved.getId());
+                String previousUsername = previous.getUsername();
+                boolean wasEnabled = Boolean.TRUE.equals(previous.getEnable());
+
+                BotBulkResult result = result(saved.getId(), saved.getUsername(), Status.SUCCEEDED, null);
+                results[pending.get(saved.getId())] = result;
+                changes.saved(saved, BotChangeEvent.updated(saved, previousUsername), result);
+
+                // 使用者名稱變更時清除舊名稱的實例與註冊狀態
+                if (!previousUsername.equals(saved.getUsername())) {
+                    changes.renamed.add(previousUsername);
+                }
+                if (Boolean.TRUE.equals(saved.getEnable())) {
+                    if (!wasEnabled || !botManager.isWebhookRegistered(saved.getUsername())) {
+                        changes.register.add(saved);
+                    }
+                } else {
+                    if (wasEnabled) {
+                        changes.deregister.add(saved);
+                    }
+                    changes.removed.add(saved.getUsername());
+                }
+            }
+            return changes.events;
+        });
+        if (failure != null) {
+            pending.forEach((id, i) -> results[i] = failed(id, bots.get(i).getUsername(), failure));
+            return toResponse(results);
+        }
+
+        propagate(changes);
+        return toResponse(results);
+    }
+
+    @Override
+    public BotBulkResponse enableBots(List<Long> ids) {
+        return setEnabled(ids, true);
+    }
+
+    @Override
+    public BotBulkResponse disableBots(List<Long> ids) {
+        return setEnabled(ids, false);
+    }
+
+    private BotBulkResponse setEnabled(List<Long> ids, boolean enable) {
+        log.info("Bulk {} {} bots", enable ? "enabling" : "disabling", ids.size());
+        BotBulkResult[] results = new BotBulkResult[ids.size()];
+        Map<Long, Integer> pending = indexIds(ids, results);
+        Map<Long, BotEntity> existing = loadExisting(pending, results, null);
+
+        existing.values().stream()
+                .filter(bot -> Boolean.valueOf(enable).equals(bot.getEnable()))
+                .forEach(bot -> results[pending.remove(bot.getId())] =
+                        result(bot.getId(), bot.getUsername(), Status.UNCHANGED, null));
+
+        List<Long> updates = List.copyOf(pending.keySet());
+        Changes changes = new Changes();
+        DataAccessException failure = writeBatch(SET_ENABLE_SQL, updates, (ps, id) -> {
+            ps.setBoolean(1, enable);
+            ps.setLong(2, id);
+        }, () -> {
+            for (BotEntity saved : reload(pending, results, null)) {
+                BotBulkResult result = result(saved.getId(), saved.getUsername(), Status.SUCCEEDED, null);
+                results[pending.get(saved.getId())] = result;
+                changes.saved(saved, BotChangeEvent.updated(saved, existing.get(saved.getId()).getUsername()), result);
+                if (enable) {
+                    changes.register.add(saved);
+                } else {
+                    changes.deregister.add(saved);
+                    changes.removed.add(saved.getUsername());
+                }
+            }
+            return changes.events;
+        });
+        if (failure != null) {
+            pending.forEach((id, i) -> results[i] = failed(id, existing.get(id).getUsername(), failure));
+            return toResponse(results);
+        }
+
+        propagate(changes);
+        return toResponse(results);
+    }
+
+    @Override
+    public BotBulkResponse deleteBots(List<Long> ids) {
+        log.info("Bulk deleting {} bots", ids.size());
+        BotBulkResult[] results = new BotBulkResult[ids.size()];
+        Map<Long, Integer> pending = indexIds(ids, results);
+        Map<Long, BotEntity> existing = loadExisting(pending, results, null);
+
+        List<Long> deletes = List.copyOf(pending.keySet());
+        Changes changes = new Changes();
+        pending.forEach((id, i) -> {
+            BotEntity bot = existing.get(id);
+            BotBulkResult result = result(id, bot.getUsername(), Status.SUCCEEDED, null);
+            results[i] = result;
+            changes.results.put(bot.getUsername(), result);
+            changes.events.add(BotChangeEvent.deleted(bot));
+            changes.deregister.add(bot);
+            changes.removed.add(bot.getUsername());
+        });
+        DataAccessException failure = writeBatch(DELETE_SQL, deletes, (ps, id) -> ps.setLong(1, id),
+                () -> changes.events);
+        if (failure != null) {
+            pending.forEach((id, i) -> results[i] = failed(id, existing.get(id).getUsername(), failure));
+            return toResponse(results);
+        }
+
+        propagate(changes);
+        return toResponse(results);
+    }
+
+    /**
+     * 將已提交的變更套用到本節點，其他節點由 outbox 轉送通知，接著以有限並行數註冊或取消 Webhook
+     */
+    private void propagate(Changes changes) {
+        if (changes.events.isEmpty()) {
+            return;
+        }
+
+        // 先更新本節點的路由表，其他節點由 outbox 轉送的通知更新
+        botService.applyBotChanges(changes.events, changes.saved);
+        for (String username : changes.renamed) {
+            telegramBotRegistry.remove(username);
+            botManager.updateLocalWebhookStatus(username, false);
+        }
+        changes.saved.stream()
+                .filter(bot -> Boolean.TRUE.equals(bot.getEnable()))
+                .forEach(telegramBotRegistry::refresh);
+
+        if (!clusterCoordinator.isWebhookOwner()) {
+            // 只有持有租約的節點呼叫 Telegram，收到 outbox 轉送的通知後再註冊或取消
+            for (BotEntity bot : changes.register) {
+                changes.results.get(bot.getUsername()).setMessage("Webhook 交由負責註冊的節點處理");
+            }
+            for (BotEntity bot : changes.deregister) {
+                changes.results.get(bot.getUsername()).setMessage("Webhook 交由負責註冊的節點處理");
+            }
+            changes.removed.forEach(telegramBotRegistry::remove);
+            return;
+        }
+
+        CompletableFuture<WebhookRegistrationProgress> registration = changes.register.isEmpty()
+                ? CompletableFuture.completedFuture(null)
+                : botManager.registerWebhooks(changes.register);
+        CompletableFuture<WebhookRegistrationProgress> deregistration = changes.deregister.isEmpty()
+                ? CompletableFuture.completedFuture(null)
+                : botManager.deregisterWebhooks(changes.deregister);
+
+        List<BotEntity> registered = new ArrayList<>();
+        WebhookRegistrationProgress registerProgress = registration.join();
+        if (registerProgress != null) {
+            Set<String> failedUsernames = new HashSet<>(registerProgress.getFailedUsernames());
+            for (BotEntity bot : changes.register) {
+                boolean success = !failedUsernames.contains(bot.getUsername());
+                BotBulkResult result = changes.results.get(bot.getUsername());
+                result.setWebhookRegistered(success);
+                if (success) {
+                    registered.add(bot);
+                } else {
+                    result.setMessage("Webhook 註冊失敗");
+                }
+            }
+        }
+
+        WebhookRegistrationProgress deregisterProgress = deregistration.join();
+        if (deregisterProgress != null) {
+            Set<String> failedUsernames = new HashSet<>(deregisterProgress.getFailedUsernames());
+            for (BotEntity bot : changes.deregister) {
+                boolean success = !failedUsernames.contains(bot.getUsername());
+                BotBulkResult result = changes.results.get(bot.getUsername());
+                result.setWebhookRegistered(!success);
+                if (!success) {
+                    result.setMessage("Webhook 取消註冊失敗");
+                }
+            }
+        }
+
+        // 取消 Webhook 時仍需要實例呼叫 API，完成後才移除
+        changes.removed.forEach(telegramBotRegistry::remove);
+        clusterEventPublisher.publishWebhooksRegistered(registered);
+    }
+
+    /**
+     * 在同一個交易內以 JDBC 批次執行，再讀回結果並將變更通知寫入 outbox，任一步驟失敗時整批回滾
+     *
+     * @param changes 寫入後在交易內執行，回傳要寫入 outbox 的變更通知
+     * @return 失敗時的例外，成功時為 null
+     */
+    private <T> DataAccessException writeBatch(String sql, List<T> items, ParameterizedPreparedStatementSetter<T> setter,
+                                               Supplier<List<BotChangeEvent>> changes) {
+        if (items.isEmpty()) {
+            return null;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(sql, items, JDBC_BATCH_SIZE, setter);
+                botChangeOutbox.appendAll(changes.get());
+            });
+            return null;
+        } catch (DataAccessException e) {
+            log.error("Batch writing {} bots failed with message: {}", items.size(), e.getMessage(), e);
+            return e;
+        }
+    }
+
+    /**
+     * 記錄每個 ID 在請求中的位置，空值與重複的 ID 直接寫入結果
+     */
+    private static Map<Long, Integer> indexIds(List<Long> ids, BotBulkResult[] results) {
+        Map<Long, Integer> pending = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (id == null) {
+                results[i] = result(null, null, Status.INVALID, "id 為必填");
+            } else if (pending.putIfAbsent(id, i) != null) {
+                results[i] = result(id, null, Status.CONFLICT, "同一批次中的 ID 重複");
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * 一次讀取待處理的機器人，不存在的項目從 pending 移除並標記為 NOT_FOUND
+     */
+    private Map<Long, BotEntity> loadExisting(Map<Long, Integer> pending, BotBulkResult[] results,
+                                              List<BotEntity> requested) {
+        Map<Long, BotEntity> existing = new HashMap<>();
+        if (!pending.isEmpty()) {
+            botRepository.findAllById(pending.keySet()).forEach(bot -> existing.put(bot.getId(), bot));
+        }
+        markMissing(pending, existing.keySet(), results, requested);
+        return existing;
+    }
+
+    /**
+     * 寫入後讀回最新的資料與版本號，期間被其他請求刪除的項目標記為 NOT_FOUND
+     */
+    private List<BotEntity> reload(Map<Long, Integer> pending, BotBulkResult[] results, List<BotEntity> requested) {
+        List<BotEntity> saved = pending.isEmpty() ? List.of() : botRepository.findAllById(pending.keySet());
+        Set<Long> found = new HashSet<>();
+        saved.forEach(bot -> found.add(bot.getId()));
+        markMissing(pending, found, results, requested);
+        return saved;
+    }
+
+    private static void markMissing(Map<Long, Integer> pending, Set<Long> found, BotBulkResult[] results,
+                                    List<BotEntity> requested) {
+        pending.entrySet().removeIf(entry -> {
+            if (found.contains(entry.getKey())) {
+                return false;
+            }
+            String username = requested == null ? null : requested.get(entry.getValue()).getUsername();
+            results[entry.getValue()] = result(entry.getKey(), username, Status.NOT_FOUND, "找不到機器人");
+            return true;
+        });
+    }
+
+    private List<BotEntity> findByUsernames(Collection<String> usernames) {
+        return usernames.isEmpty() ? List.of() : botRepository.findByUsernameIn(usernames);
+    }
+
+    private static BotBulkResult result(Long id, String username, Status status, String message) {
+        return BotBulkResult.builder()
+                .id(id)
+                .username(username)
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    private static BotBulkResult failed(Long id, String username, DataAccessException e) {
+        return result(id, username, Status.FAILED, e.getMostSpecificCause().getMessage());
+    }
+
+    private static BotBulkResponse toResponse(BotBulkResult[] results) {
+        int succeeded = 0;
+        for (int i = 0; i < results.length; i++) {
+            BotBulkResult result = results[i];
+            if (result == null) {
+                // 寫入成功但讀不回來，通常是寫入後立即被其他請求修改
+                results[i] = result(null, null, Status.FAILED, "寫入後無法讀回機器人資料");
+            } else if (result.getStatus() == Status.SUCCEEDED || result.getStatus() == Status.UNCHANGED) {
+                succeeded++;
+            }
+        }
+        return BotBulkResponse.builder()
+                .total(results.length)
+                .succeeded(succeeded)
+                .failed(results.length - succeeded)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * 一次批次操作中需要套用到各節點與 Telegram 的變更
+     */
+    private static final class Changes {
+
+        private final List<BotEntity> saved = new ArrayList<>();
+        private final List<BotChangeEvent> events = new ArrayList<>();
+        private final Map<String, BotBulkResult> results = new HashMap<>();
+        private final List<BotEntity> register = new ArrayList<>();
+        private final List<BotEntity> deregister = new ArrayList<>();
+        private final List<String> renamed = new ArrayList<>();
+        private final List<String> removed = new ArrayList<>();
+
+        private void saved(BotEntity bot, BotChangeEvent event, BotBulkResult result) {
+            saved.add(bot);
+            events.add(event);
+            results.put(bot.getUsername(), result);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import com.example.telegrambotwebhook.event.BotChangeEvent;
+import com.example.telegrambotwebhook.service.BotChangeOutbox;
+import com.example.telegrambotwebhook.service.ClusterCoordinator;
+import jakarta.transaction.Transactional;
+import java.util.Collection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class BotChangeOutboxImpl implements BotChangeOutbox {
+
+    private static final int JDBC_BATCH_SIZE = 500;
+    private static final String INSERT_SQL = "INSERT INTO bot_outbox "
+            + "(bot_id, old_username, username, version, deleted, origin, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP(3))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterCoordinator clusterCoordinator;
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void appendAll(Collection<BotChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        // 本節點已在交易內套用變更，轉送後其他節點依 origin 判斷是否需要套用
+        String origin = clusterCoordinator.getNodeId();
+        jdbcTemplate.batchUpdate(INSERT_SQL, events, JDBC_BATCH_SIZE, (ps, event) -> {
+            ps.setLong(1, event.botId());
+            ps.setString(2, event.oldUsername());
+            ps.setString(3, event.newUsername());
+            ps.setLong(4, event.version() == null ? 0L : event.version());
+            ps.setBoolean(5, event.deleted());
+            ps.setString(6, origin);
+        });
+    }
+}
@@ -1,179 +1,602 @@
 package com.example.telegrambotwebhook.service.impl;
 
 import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.dto.WebhookRegistrationProgress;
 import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.entity.WebhookRegistrationEntity;
+import com.example.telegrambotwebhook.event.WebhookOwnershipChangedEvent;
 import com.example.telegrambotwebhook.repository.BotRepository;
+import com.example.telegrambotwebhook.repository.WebhookRegistrationRepository;
 import com.example.telegrambotwebhook.service.BotManager;
-import com.example.telegrambotwebhook.service.TelegramBot;
-import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
-import java.util.HashSet;
+import com.example.telegrambotwebhook.service.ClusterCoordinator;
+import com.example.telegrambotwebhook.service.TelegramBotRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Component;
-import org.telegram.telegrambots.meta.api.methods.updates.DeleteWebhook;
 import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
 @Slf4j
 @Component
-public class BotManagerImpl implements BotManager {
+public class BotManagerImpl implements BotManager, SmartLifecycle {
+
+    private static final int LOCK_STRIPES = 1024;
 
     private final TelegramBotConfig telegramBotConfig;
     private final BotRepository botRepository;
-    private final Set<String> registeredWebhooks = new HashSet<>();
-    private final ReentrantLock webhookLock = new ReentrantLock();
+    private final TelegramBotRegistry telegramBotRegistry;
+    private final ClusterCoordinator clusterCoordinator;
+    private final WebhookRegistrationRepository webhookRegistrationRepository;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, WebhookState> webhookStates = new ConcurrentHashMap<>();
+    // 固定數量的分段鎖，只保護狀態與資料庫更新；同一機器人的網路請求由 webhookStates 的 CAS 互斥
+    private final ReentrantLock[] botLocks = new ReentrantLock[LOCK_STRIPES];
+    private final ExecutorService registrationExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore registrationPermits;
+    private volatile BulkRegistration lastBulkRegistration;
+    private volatile boolean initialRegistrationComplete;
+    private volatile boolean running;
+    private volatile boolean stopping;
 
-    public BotManagerImpl(TelegramBotConfig telegramBotConfig, BotRepository botRepository) {
+    public BotManagerImpl(TelegramBotConfig telegramBotConfig, BotRepository botRepository,
+                          TelegramBotRegistry telegramBotRegistry, ClusterCoordinator clusterCoordinator,
+                          WebhookRegistrationRepository webhookRegistrationRepository, MeterRegistry meterRegistry) {
         this.telegramBotConfig = telegramBotConfig;
         this.botRepository = botRepository;
+        this.telegramBotRegistry = telegramBotRegistry;
+        this.clusterCoordinator = clusterCoordinator;
+        this.webhookRegistrationRepository = webhookRegistrationRepository;
+        this.meterRegistry = meterRegistry;
+        this.registrationPermits = new Semaphore(telegramBotConfig.getRegistration().getConcurrency());
+        for (int i = 0; i < botLocks.length; i++) {
+            botLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void start() {
+        init();
+        running = true;
+    }
+
+    /**
+     * 在 web 伺服器停止、佇列清空之後執行，最後一個節點才取消 webhook
+     */
+    @Override
+    public void stop() {
+        deregisterAllWebhooks();
+        registrationExecutor.shutdownNow();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 在取得租約之後啟動
+     */
+    @Override
+    public int getPhase() {
+        return ClusterCoordinatorImpl.PHASE + 1;
     }
 
-    @PostConstruct
     @Override
     public void init() {
         log.info("Initializing Telegram 機器人 webhook...");
 
+        if (!clusterCoordinator.isWebhookOwner()) {
+            log.info("Node {} does not own webhook registration, skipping initial registration",
+                    clusterCoordinator.getNodeId());
+            initialRegistrationComplete = true;
+            return;
+        }
+
+        List<BotEntity> enabledBots;
         try {
-            List<BotEntity> enabledBots = botRepository.findByEnableTrue();
-            enabledBots.forEach(this::registerWebhook);
-            log.info("Registered webhooks: {}", registeredWebhooks);
+            enabledBots = pendingRegistrations(botRepository.findByEnableTrue());
         } catch (DataAccessException e) {
             log.error("Initializing Telegram bots failed: {}", e.getMessage());
+            initialRegistrationComplete = true;
+            return;
+        }
+
+        // 在背景註冊，節點可先服務已註冊的 Bot
+        registerWebhooks(enabledBots).whenComplete((progress, e) -> {
+            initialRegistrationComplete = true;
+            if (e != null) {
+                log.error("Initial webhook registration failed: {}", e.getMessage(), e);
+            } else {
+                log.info("Initial webhook registration completed. Success: {}, Failure: {}",
+                        progress.getSucceeded(), progress.getFailed());
+            }
+        });
+    }
+
+    /**
+     * 接手 webhook 註冊租約時，補註冊尚未註冊或 URL 已變更的機器人
+     */
+    @EventListener
+    public void onWebhookOwnershipChanged(WebhookOwnershipChangedEvent event) {
+        if (!event.owner()) {
+            return;
+        }
+
+        try {
+            List<BotEntity> pending = pendingRegistrations(botRepository.findByEnableTrue());
+            if (!pending.isEmpty()) {
+                registerWebhooks(pending);
+            }
+        } catch (DataAccessException e) {
+            log.error("Registering webhooks after taking ownership failed: {}", e.getMessage());
         }
     }
 
-    @PreDestroy
     @Override
     public void deregisterAllWebhooks() {
-        log.info("Deregistering all webhooks started...");
+        // 不再開始新的註冊，避免在取消之後又被註冊回去
+        stopping = true;
 
-        Set<String> webhooksCopy = new HashSet<>(registeredWebhooks);
-        int successCount = 0;
-        int failureCount = 0;
+        if (!clusterCoordinator.isWebhookOwner() || clusterCoordinator.hasOtherLiveNodes()) {
+            // 其他節點仍依賴這些 webhook，由接手租約的節點繼續負責
+            log.info("Other nodes are still serving webhooks, leaving webhooks registered");
+            return;
+        }
 
-        for (String username : webhooksCopy) {
-            try {
-                boolean result = deregisterWebhook(username);
-                if (result) {
-                    successCount++;
-                } else {
-                    failureCount++;
-                }
-            } catch (Exception e) {
-                log.error("Failed to deregister webhook for user {} with message: {}", username, e.getMessage(), e);
-                failureCount++;
-            }
+        List<BotEntity> registered;
+        try {
+            Set<String> usernames = registeredUsernames();
+            registered = usernames.isEmpty() ? List.of() : botRepository.findByUsernameIn(usernames);
+        } catch (DataAccessException e) {
+            log.error("Loading registered webhooks failed: {}", e.getMessage());
+            return;
+        }
+        if (registered.isEmpty()) {
+            return;
         }
 
-        log.info("Deregistering all webhooks completed. Success: {}, Failure: {}", successCount, failureCount);
-        registeredWebhooks.clear();
+        long timeoutMs = telegramBotConfig.getShutdown().getDeregisterTimeoutMs();
+        log.info("Last live node deregistering {} webhooks with concurrency {}",
+                registered.size(), telegramBotConfig.getRegistration().getConcurrency());
+        try {
+            WebhookRegistrationProgress progress = deregisterWebhooks(registered).get(timeoutMs, TimeUnit.MILLISECONDS);
+            log.info("Deregistering all webhooks completed. Success: {}, Failure: {}",
+                    progress.getSucceeded(), progress.getFailed());
+        } catch (TimeoutException e) {
+            log.warn("Deregistering webhooks did not finish within {} ms", timeoutMs);
+        } catch (ExecutionException e) {
+            log.error("Deregistering webhooks failed: {}", e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
     public boolean registerWebhook(BotEntity botEntity) {
-        log.debug("Registering webhook: {}", botEntity.getUsername());
+        String username = botEntity.getUsername();
+        log.debug("Registering webhook: {}", username);
+
+        if (!ownsWebhooks(username)) {
+            return false;
+        }
 
-        webhookLock.lock();
+        String webhookUrl = webhookUrlOf(username);
+
+        // 以狀態表的 CAS 認領該機器人，網路請求期間不持有鎖，同一段鎖上的其他機器人不受影響
+        WebhookState previous = webhookStates.get(username);
+        if (isInProgress(previous) || !claim(username, previous, WebhookState.REGISTERING)) {
+            log.info("機器人 {} 的 webhook 正在註冊或取消中，略過本次註冊", username);
+            return false;
+        }
+        if (previous == WebhookState.REGISTERED) {
+            log.info("機器人 {} 的 webhook 已經註冊，正在更新設定", username);
+        }
+
+        // SetWebhook 會直接覆蓋既有設定，不需要先取消註冊
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            // 檢查 webhook 是否已註冊
-            if (registeredWebhooks.contains(botEntity.getUsername())) {
-                log.info("機器人 {} 的 webhook 已經註冊，正在更新設定", botEntity.getUsername());
-                deregisterWebhook(botEntity.getUsername());
-            }
+            telegramBotRegistry.getBot(botEntity).setWebhook(SetWebhook.builder().url(webhookUrl).build());
+            recordApiCall(sample, "setWebhook", "success");
+        } catch (TelegramApiException | RuntimeException e) {
+            recordApiCall(sample, "setWebhook", "failure");
+            withLock(username, () -> restore(username, previous));
+            log.error("Registering webhook for bot {} failed with message: {}", username, e.getMessage(), e);
+            return false;
+        }
+
+        withLock(username, () -> {
+            webhookStates.put(username, WebhookState.REGISTERED);
+            persistState(username, true, webhookUrl);
+        });
+        log.info("Registered webhook for bot {} with URL: {}", username, webhookUrl);
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<WebhookRegistrationProgress> registerWebhooks(Collection<BotEntity> botEntities) {
+        BulkRegistration bulk = new BulkRegistration(botEntities.size());
+        lastBulkRegistration = bulk;
+        log.info("Bulk registering {} webhooks with concurrency {}",
+                botEntities.size(), telegramBotConfig.getRegistration().getConcurrency());
 
-            // 創建臨時 Bot 實例用於註冊 webhook
-            TelegramBot tempBot = new TelegramBot(
-                    botEntity.getToken(),
-                    botEntity.getUsername(),
-                    telegramBotConfig.getRegisterPath() + "/" + botEntity.getUsername()
-            );
+        CompletableFuture<?>[] futures = botEntities.stream()
+                .map(botEntity -> CompletableFuture.runAsync(
+                        () -> bulk.record(botEntity.getUsername(), registerWithRetry(botEntity)),
+                        registrationExecutor))
+                .toArray(CompletableFuture[]::new);
 
-            String webhookUrl = telegramBotConfig.getWebhookDomain() +
-                    telegramBotConfig.getRegisterPath() + "/" +
-                    botEntity.getUsername();
+        return CompletableFuture.allOf(futures).thenApply(v -> {
+            bulk.completedAt = Instant.now();
+            return bulk.snapshot();
+        });
+    }
 
+    @Override
+    public WebhookRegistrationProgress getRegistrationProgress() {
+        BulkRegistration bulk = lastBulkRegistration;
+        return bulk == null ? null : bulk.snapshot();
+    }
+
+    @Override
+    public boolean isInitialRegistrationComplete() {
+        return initialRegistrationComplete;
+    }
+
+    /**
+     * 在並行數上限內註冊單一機器人，逾時或失敗時以指數退避重試
+     */
+    private boolean registerWithRetry(BotEntity botEntity) {
+        TelegramBotConfig.Registration config = telegramBotConfig.getRegistration();
+        for (int attempt = 1; attempt <= config.getMaxAttempts(); attempt++) {
+            if (stopping || !clusterCoordinator.isWebhookOwner()) {
+                return false;
+            }
             try {
-                SetWebhook setWebhook = SetWebhook.builder()
-                        .url(webhookUrl)
-                        .build();
-
-                tempBot.setWebhook(setWebhook);
-                registeredWebhooks.add(botEntity.getUsername());
-                log.info("Registered webhook for bot {} with URL: {}", botEntity.getUsername(), webhookUrl);
-                return true;
-            } catch (TelegramApiException e) {
-                log.error("Registering webhook for bot {} failed with message: {}", botEntity.getUsername(), e.getMessage(), e);
+                registrationPermits.acquire();
+                // 許可由執行的工作歸還；工作未開始就被取消或無法提交時由此處歸還，且只歸還一次
+                AtomicBoolean started = new AtomicBoolean();
+                AtomicBoolean released = new AtomicBoolean();
+                Runnable release = () -> {
+                    if (released.compareAndSet(false, true)) {
+                        registrationPermits.release();
+                    }
+                };
+
+                Future<Boolean> result;
+                try {
+                    result = registrationExecutor.submit(() -> {
+                        started.set(true);
+                        try {
+                            return registerWebhook(botEntity);
+                        } finally {
+                            release.run();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    release.run();
+                    return false;
+                }
+
+                try {
+                    if (result.get(config.getTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (TimeoutException e) {
+                    result.cancel(true);
+                    if (!started.get()) {
+                        release.run();
+                    }
+                    log.warn("Registering webhook for bot {} timed out (attempt {}/{})",
+                            botEntity.getUsername(), attempt, config.getMaxAttempts());
+                } catch (ExecutionException e) {
+                    log.warn("Registering webhook for bot {} failed (attempt {}/{}): {}",
+                            botEntity.getUsername(), attempt, config.getMaxAttempts(), e.getCause().getMessage());
+                }
+
+                if (attempt < config.getMaxAttempts()) {
+                    Thread.sleep(config.getRetryBackoffMs() << (attempt - 1));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 return false;
             }
-        } finally {
-            webhookLock.unlock();
         }
+        return false;
     }
 
     @Override
     public boolean deregisterWebhook(String username) {
         log.debug("Deregistering webhook: {}", username);
 
+        if (!isWebhookRegistered(username)) {
+            log.info("機器人 {} 的 webhook 尚未註冊，無需取消", username);
+            return true;
+        }
+
         BotEntity botEntity = botRepository.findByUsername(username).orElse(null);
         if (botEntity == null) {
             log.warn("No bot found to deregister webhook for: {}", username);
             return false;
         }
 
-        webhookLock.lock();
-        try {
-            if (!registeredWebhooks.contains(username)) {
-                log.info("機器人 {} 的 webhook 尚未註冊，無需取消", username);
-                return true;
-            }
+        return deregister(botEntity);
+    }
 
-            // 創建臨時 Bot 實例用於取消註冊 webhook
-            TelegramBot tempBot = new TelegramBot(
-                    botEntity.getToken(),
-                    botEntity.getUsername(),
-                    null
-            );
+    @Override
+    public CompletableFuture<WebhookRegistrationProgress> deregisterWebhooks(Collection<BotEntity> botEntities) {
+        BulkRegistration bulk = new BulkRegistration(botEntities.size());
+        log.info("Bulk deregistering {} webhooks", botEntities.size());
 
-            try {
-                // 從 Telegram 取消 webhook
-                DeleteWebhook deleteWebhook = new DeleteWebhook();
-                tempBot.execute(deleteWebhook);
-
-                // 從註冊記錄中移除
-                registeredWebhooks.remove(username);
-                log.info("Deregistered webhook for bot {}", username);
-                return true;
-            } catch (TelegramApiException e) {
-                log.error("Deregistering webhook for bot {} failed with message: {}", username, e.getMessage(), e);
-                return false;
-            }
-        } finally {
-            webhookLock.unlock();
+        CompletableFuture<?>[] futures = botEntities.stream()
+                .map(botEntity -> CompletableFuture.runAsync(() -> {
+                    boolean success = false;
+                    try {
+                        registrationPermits.acquire();
+                        try {
+                            success = !isWebhookRegistered(botEntity.getUsername()) || deregister(botEntity);
+                        } finally {
+                            registrationPermits.release();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    bulk.record(botEntity.getUsername(), success);
+                }, registrationExecutor))
+                .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(futures).thenApply(v -> {
+            bulk.completedAt = Instant.now();
+            return bulk.snapshot();
+        });
+    }
+
+    /**
+     * 以指定的機器人資料呼叫 Telegram 取消 Webhook
+     */
+    private boolean deregister(BotEntity botEntity) {
+        String username = botEntity.getUsername();
+        if (!ownsWebhooks(username)) {
+            return false;
+        }
+
+        WebhookState previous = webhookStates.get(username);
+        if (previous == WebhookState.DEREGISTERING) {
+            log.info("機器人 {} 的 webhook 正在取消註冊", username);
+            return true;
+        }
+        if (isInProgress(previous) || !claim(username, previous, WebhookState.DEREGISTERING)) {
+            log.info("機器人 {} 的 webhook 正在註冊中，略過本次取消", username);
+            return false;
         }
+
+        // 從 Telegram 取消 webhook，請求期間不持有鎖
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            telegramBotRegistry.getBot(botEntity).deleteWebhook();
+            recordApiCall(sample, "deleteWebhook", "success");
+        } catch (TelegramApiException | RuntimeException e) {
+            recordApiCall(sample, "deleteWebhook", "failure");
+            withLock(username, () -> restore(username, previous));
+            log.error("Deregistering webhook for bot {} failed with message: {}", username, e.getMessage(), e);
+            return false;
+        }
+
+        // 從註冊記錄中移除
+        withLock(username, () -> {
+            webhookStates.remove(username);
+            persistState(username, false, null);
+        });
+        log.info("Deregistered webhook for bot {}", username);
+        return true;
     }
 
     @Override
     public boolean isWebhookRegistered(String username) {
-        return registeredWebhooks.contains(username);
+        if (clusterCoordinator.isClustered()) {
+            // 多節點模式以資料庫中的註冊狀態為準
+            return webhookRegistrationRepository.findById(username)
+                    .map(registration -> Boolean.TRUE.equals(registration.getRegistered()))
+                    .orElse(false);
+        }
+        return webhookStates.get(username) == WebhookState.REGISTERED;
     }
 
     @Override
     public void updateLocalWebhookStatus(String username, boolean registered) {
-        webhookLock.lock();
-        try {
+        withLock(username, () -> {
             if (registered) {
-                registeredWebhooks.add(username);
-                log.info("已在本地標記 Bot {} 的 webhook 為已註冊", username);
+                webhookStates.put(username, WebhookState.REGISTERED);
             } else {
-                registeredWebhooks.remove(username);
-                log.info("已在本地標記 Bot {} 的 webhook 為未註冊", username);
+                webhookStates.remove(username);
+                persistState(username, false, null);
             }
+        });
+        log.info("已在本地標記 Bot {} 的 webhook 為{}", username, registered ? "已註冊" : "未註冊");
+    }
+
+    /**
+     * 記錄 webhook 相關 Bot API 呼叫的耗時與結果，不帶 bot 標籤以免數千個機器人造成標籤爆量
+     */
+    private void recordApiCall(Timer.Sample sample, String method, String outcome) {
+        sample.stop(Timer.builder("telegram.webhook.api")
+                .description("SetWebhook / DeleteWebhook 呼叫耗時")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private String webhookUrlOf(String username) {
+        return telegramBotConfig.getWebhookDomain() +
+                telegramBotConfig.getRegisterPath() + "/" +
+                username;
+    }
+
+    /**
+     * 已註冊 webhook 的機器人，多節點模式以資料庫為準，包含其他節點註冊的機器人
+     */
+    private Set<String> registeredUsernames() {
+        if (clusterCoordinator.isClustered()) {
+            return webhookRegistrationRepository.findByRegisteredTrue().stream()
+                    .map(WebhookRegistrationEntity::getUsername)
+                    .collect(Collectors.toSet());
+        }
+        return Set.copyOf(webhookStates.keySet());
+    }
+
+    /**
+     * 多節點模式下，排除資料庫中已以相同 URL 註冊的機器人
+     */
+    private List<BotEntity> pendingRegistrations(List<BotEntity> enabledBots) {
+        if (!clusterCoordinator.isClustered()) {
+            return enabledBots;
+        }
+
+        Set<String> registered = webhookRegistrationRepository.findByRegisteredTrue().stream()
+                .filter(registration -> webhookUrlOf(registration.getUsername()).equals(registration.getWebhookUrl()))
+                .map(WebhookRegistrationEntity::getUsername)
+                .collect(Collectors.toSet());
+        return enabledBots.stream()
+                .filter(botEntity -> !registered.contains(botEntity.getUsername()))
+                .toList();
+    }
+
+    /**
+     * 多節點模式下，將註冊狀態寫入資料庫供其他節點讀取
+     */
+    private void persistState(String username, boolean registered, String webhookUrl) {
+        if (!clusterCoordinator.isClustered()) {
+            return;
+        }
+
+        try {
+            webhookRegistrationRepository.save(WebhookRegistrationEntity.builder()
+                    .username(username)
+                    .registered(registered)
+                    .webhookUrl(webhookUrl)
+                    .updatedBy(clusterCoordinator.getNodeId())
+                    .updatedAt(Instant.now())
+                    .build());
+        } catch (DataAccessException e) {
+            log.error("Persisting webhook state for bot {} failed with message: {}", username, e.getMessage());
+        }
+    }
+
+    /**
+     * 只有持有租約的節點呼叫 SetWebhook / DeleteWebhook，其他節點的變更由持有者消費叢集事件後處理
+     */
+    private boolean ownsWebhooks(String username) {
+        if (clusterCoordinator.isWebhookOwner()) {
+            return true;
+        }
+        log.debug("Node {} does not own webhook registration, leaving bot {} to the owner",
+                clusterCoordinator.getNodeId(), username);
+        return false;
+    }
+
+    /**
+     * 以 CAS 將狀態從 expected 改為進行中，expected 為 null 代表未註冊；其他執行緒已先改變狀態時回傳 false
+     */
+    private boolean claim(String username, WebhookState expected, WebhookState inProgress) {
+        return expected == null
+                ? webhookStates.putIfAbsent(username, inProgress) == null
+                : webhookStates.replace(username, expected, inProgress);
+    }
+
+    private static boolean isInProgress(WebhookState state) {
+        return state == WebhookState.REGISTERING || state == WebhookState.DEREGISTERING;
+    }
+
+    /**
+     * 只在更新狀態與寫入資料庫時持有分段鎖，不包含 Telegram 的網路請求
+     */
+    private void withLock(String username, Runnable action) {
+        int hash = username.hashCode();
+        ReentrantLock lock = botLocks[Math.floorMod(hash ^ (hash >>> 16), botLocks.length)];
+        lock.lock();
+        try {
+            action.run();
         } finally {
-            webhookLock.unlock();
+            lock.unlock();
+        }
+    }
+
+    private void restore(String username, WebhookState previous) {
+        if (previous == null) {
+            webhookStates.remove(username);
+        } else {
+            webhookStates.put(username, previous);
+        }
+    }
+
+    /**
+     * 單一機器人的 webhook 狀態，不在表中代表未註冊
+     */
+    private enum WebhookState {
+        REGISTERING,
+        REGISTERED,
+        DEREGISTERING
+    }
+
+    /**
+     * 批次註冊的進度統計
+     */
+    private static final class BulkRegistration {
+
+        private final int total;
+        private final Instant startedAt = Instant.now();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final ConcurrentLinkedQueue<String> failedUsernames = new ConcurrentLinkedQueue<>();
+        private volatile Instant completedAt;
+
+        private BulkRegistration(int total) {
+            this.total = total;
+        }
+
+        private void record(String username, boolean success) {
+            if (success) {
+                succeeded.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+                failedUsernames.add(username);
+            }
+        }
+
+        private WebhookRegistrationProgress snapshot() {
+            return WebhookRegistrationProgress.builder()
+                    .total(total)
+                    .succeeded(succeeded.get())
+                    .failed(failed.get())
+                    .completed(completedAt != null)
+                    .startedAt(startedAt)
+                    .completedAt(completedAt)
+                    .failedUsernames(List.copyOf(failedUsernames))
+                    .build();
         }
     }
 }
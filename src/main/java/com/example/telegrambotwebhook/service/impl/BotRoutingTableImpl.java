@@ -0,0 +1,308 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.event.BotChangeEvent;
+import com.example.telegrambotwebhook.kafka.BotStateReplayer;
+import com.example.telegrambotwebhook.repository.BotRepository;
+import com.example.telegrambotwebhook.routing.BotRoute;
+import com.example.telegrambotwebhook.service.BotRoutingTable;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * 寫入時複製的路由表：查詢只讀取 volatile 快照，變更在鎖內複製一份新的快照後整份替換。
+ * 只收錄啟用中的機器人且每筆只保留 ID、使用者名稱、token 與版本號，記憶體用量與啟用數量成正比。
+ */
+@Slf4j
+@Component
+public class BotRoutingTableImpl implements BotRoutingTable, SmartLifecycle {
+
+    private final BotRepository botRepository;
+    // telegram-bot.routing.bootstrap=database 時不存在，啟動時直接從資料庫載入
+    private final ObjectProvider<BotStateReplayer> botStateReplayer;
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), 0L, null);
+    private volatile boolean running;
+
+    public BotRoutingTableImpl(BotRepository botRepository, ObjectProvider<BotStateReplayer> botStateReplayer,
+                               MeterRegistry meterRegistry) {
+        this.botRepository = botRepository;
+        this.botStateReplayer = botStateReplayer;
+
+        Gauge.builder("telegram.routing.size", this, BotRoutingTable::size)
+                .description("路由表中的啟用中機器人數量")
+                .register(meterRegistry);
+        Gauge.builder("telegram.routing.generation", this, BotRoutingTable::getGeneration)
+                .description("路由表版本")
+                .register(meterRegistry);
+        Gauge.builder("telegram.routing.last.applied", this,
+                        table -> table.getLastAppliedAt() == null ? 0 : table.getLastAppliedAt().getEpochSecond())
+                .description("最後一次套用變更的時間 (epoch 秒)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        init();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return ClusterCoordinatorImpl.PHASE;
+    }
+
+    /**
+     * 啟動時優先重播 bot-state 主題，失敗、主題尚無資料或與資料庫不一致時退回資料庫；
+     * 空的主題由持有租約的節點在 outbox 轉送時寫入，避免與轉送的較新狀態交錯
+     */
+    private void init() {
+        BotStateReplayer replayer = botStateReplayer.getIfAvailable();
+        if (replayer == null) {
+            reload();
+            return;
+        }
+
+        Optional<List<BotRoute>> routes;
+        try {
+            routes = replayer.replay();
+        } catch (RuntimeException e) {
+            log.warn("Replaying bot state failed, loading routing table from database: {}", e.getMessage());
+            reload();
+            return;
+        }
+        if (routes.isEmpty() || !matchesDatabase(routes.get())) {
+            reload();
+            return;
+        }
+        synchronized (writeLock) {
+            replace(routes.get());
+        }
+        log.info("Loaded {} enabled bots into routing table from bot state topic", routes.get().size());
+    }
+
+    /**
+     * 逐一比對重播結果與資料庫中啟用機器人的 ID 與版本號，任一機器人缺少、多出或版本不同時視為不一致
+     */
+    private boolean matchesDatabase(List<BotRoute> routes) {
+        Map<Long, Long> versions = new HashMap<>();
+        botRepository.findEnabledVersions().forEach(bot -> versions.put(bot.id(), bot.version()));
+
+        long matched = routes.stream()
+                .filter(route -> Long.valueOf(route.version()).equals(versions.get(route.id())))
+                .count();
+        if (matched == routes.size() && matched == versions.size()) {
+            return true;
+        }
+        log.warn("Bot state topic does not match database ({} of {} replayed bots current, {} enabled in database), "
+                + "loading routing table from database", matched, routes.size(), versions.size());
+        return false;
+    }
+
+    @Override
+    public void reload() {
+        // 在鎖內讀取，避免載入期間的變更被整份替換覆蓋
+        synchronized (writeLock) {
+            load();
+        }
+    }
+
+    /**
+     * 從資料庫載入所有啟用中的機器人並替換快照；呼叫端需持有 writeLock
+     */
+    private void load() {
+        List<BotEntity> bots = botRepository.findByEnableTrue();
+        replace(bots.stream().map(BotRoute::of).toList());
+        log.info("Loaded {} enabled bots into routing table", bots.size());
+    }
+
+    /**
+     * 以完整的路由資料替換快照；呼叫端需持有 writeLock
+     */
+    private void replace(Collection<BotRoute> routes) {
+        Map<String, BotRoute> byUsername = new HashMap<>(Math.max(16, routes.size() * 4 / 3 + 1));
+        Map<Long, String> usernameById = new HashMap<>(Math.max(16, routes.size() * 4 / 3 + 1));
+        for (BotRoute route : routes) {
+            byUsername.put(route.username(), route);
+            usernameById.put(route.id(), route.username());
+        }
+
+        snapshot = new Snapshot(Collections.unmodifiableMap(byUsername), Collections.unmodifiableMap(usernameById),
+                snapshot.generation + 1, Instant.now());
+    }
+
+    @Override
+    public BotRoute lookup(String username) {
+        return snapshot.byUsername.get(username);
+    }
+
+    @Override
+    public void upsertAll(Collection<BotEntity> bots) {
+        if (bots.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            mutate(routes -> bots.forEach(bot -> put(routes, bot)));
+        }
+    }
+
+    @Override
+    public void applyAll(Collection<BotChangeEvent> events, Collection<BotEntity> loaded) {
+        Map<Long, BotEntity> loadedById = new HashMap<>();
+        loaded.forEach(bot -> loadedById.put(bot.getId(), bot));
+        List<Long> removedIds = new ArrayList<>();
+        List<Long> reloadIds = new ArrayList<>();
+        List<BotEntity> bots = new ArrayList<>();
+        for (BotChangeEvent event : events) {
+            if (event.deleted()) {
+                removedIds.add(event.botId());
+                continue;
+            }
+
+            BotRoute current = routeById(event.botId());
+            long version = event.version() == null ? 0L : event.version();
+            if (current == null || current.version() < version || !current.username().equals(event.newUsername())) {
+                BotEntity bot = loadedById.get(event.botId());
+                if (bot != null && bot.getVersion() != null && bot.getVersion() >= version) {
+                    bots.add(bot);
+                } else {
+                    reloadIds.add(event.botId());
+                }
+            }
+        }
+
+        // 事件不含 token，以資料庫的最新資料為準，資料庫中已不存在的機器人一併移除
+        List<BotEntity> reloaded = reloadIds.isEmpty() ? List.of() : botRepository.findAllById(reloadIds);
+        if (reloaded.size() < reloadIds.size()) {
+            Set<Long> found = new HashSet<>();
+            reloaded.forEach(bot -> found.add(bot.getId()));
+            reloadIds.stream().filter(id -> !found.contains(id)).forEach(removedIds::add);
+        }
+        bots.addAll(reloaded);
+        if (removedIds.isEmpty() && bots.isEmpty()) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            mutate(routes -> {
+                removedIds.forEach(routes::remove);
+                bots.forEach(bot -> put(routes, bot));
+            });
+        }
+    }
+
+    /**
+     * 套用單一機器人的最新資料，版本號比路由表舊時忽略
+     */
+    private static void put(MutableRoutes routes, BotEntity bot) {
+        BotRoute route = BotRoute.of(bot);
+        BotRoute current = routes.get(bot.getId());
+        if (current != null && current.version() > route.version()) {
+            log.debug("Ignoring stale routing update for bot {}, version {} < {}",
+                    bot.getUsername(), route.version(), current.version());
+            return;
+        }
+        if (Boolean.TRUE.equals(bot.getEnable())) {
+            routes.put(route);
+        } else {
+            routes.remove(bot.getId());
+        }
+    }
+
+    @Override
+    public int size() {
+        return snapshot.byUsername.size();
+    }
+
+    @Override
+    public long getGeneration() {
+        return snapshot.generation;
+    }
+
+    @Override
+    public Instant getLastAppliedAt() {
+        return snapshot.appliedAt;
+    }
+
+    private BotRoute routeById(Long id) {
+        Snapshot current = snapshot;
+        String username = current.usernameById.get(id);
+        return username == null ? null : current.byUsername.get(username);
+    }
+
+    /**
+     * 複製目前快照、套用變更後整份替換，沒有實際變更時保留原快照；呼叫端需持有 writeLock
+     */
+    private void mutate(Consumer<MutableRoutes> change) {
+        Snapshot current = snapshot;
+        MutableRoutes routes = new MutableRoutes(new HashMap<>(current.byUsername), new HashMap<>(current.usernameById));
+        change.accept(routes);
+        if (!routes.changed) {
+            return;
+        }
+        snapshot = new Snapshot(Collections.unmodifiableMap(routes.byUsername),
+                Collections.unmodifiableMap(routes.usernameById), current.generation + 1, Instant.now());
+    }
+
+    private record Snapshot(Map<String, BotRoute> byUsername, Map<Long, String> usernameById,
+                            long generation, Instant appliedAt) {
+    }
+
+    private static final class MutableRoutes {
+
+        private final Map<String, BotRoute> byUsername;
+        private final Map<Long, String> usernameById;
+        private boolean changed;
+
+        private MutableRoutes(Map<String, BotRoute> byUsername, Map<Long, String> usernameById) {
+            this.byUsername = byUsername;
+            this.usernameById = usernameById;
+        }
+
+        BotRoute get(Long id) {
+            String username = usernameById.get(id);
+            return username == null ? null : byUsername.get(username);
+        }
+
+        void put(BotRoute route) {
+            remove(route.id());
+            byUsername.put(route.username(), route);
+            usernameById.put(route.id(), route.username());
+            changed = true;
+        }
+
+        void remove(Long id) {
+            String username = usernameById.remove(id);
+            if (username != null) {
+                byUsername.remove(username);
+                changed = true;
+            }
+        }
+    }
+}
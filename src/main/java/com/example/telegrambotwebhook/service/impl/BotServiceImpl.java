@@ -1,18 +1,35 @@
 package com.example.telegrambotwebhook.service.impl;
 
 import com.example.telegrambotwebhook.config.CacheConfig;
+import com.example.telegrambotwebhook.dto.BotPage;
+import com.example.telegrambotwebhook.dto.BotSummary;
 import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.event.BotChangeEvent;
 import com.example.telegrambotwebhook.repository.BotRepository;
+import com.example.telegrambotwebhook.service.BotChangeOutbox;
 import com.example.telegrambotwebhook.service.BotManager;
+import com.example.telegrambotwebhook.service.BotRoutingTable;
 import com.example.telegrambotwebhook.service.BotService;
-import jakarta.transaction.Transactional;
+import com.example.telegrambotwebhook.service.TelegramBotRegistry;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
 @Slf4j
 @Service
@@ -21,43 +38,114 @@ public class BotServiceImpl implements BotService {
 
     private final BotRepository botRepository;
     private final BotManager botManager;
+    private final TelegramBotRegistry telegramBotRegistry;
+    private final BotRoutingTable botRoutingTable;
+    private final CacheManager cacheManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final BotChangeOutbox botChangeOutbox;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 每個機器人已套用的最新版本號，用來忽略亂序抵達的舊事件
+     */
+    private final Map<Long, Long> appliedVersions = new ConcurrentHashMap<>();
 
     @Override
     public List<BotEntity> getAllBots() {
         return botRepository.findAll();
     }
 
+    @Override
+    public BotPage listBots(Long afterId, int limit, Boolean enable, String usernamePrefix) {
+        // 多查一筆判斷是否還有下一頁
+        List<BotSummary> items = botRepository.findSummariesAfter(
+                afterId == null ? 0L : afterId, enable, toLikePattern(usernamePrefix), Limit.of(limit + 1));
+
+        Long nextCursor = null;
+        if (items.size() > limit) {
+            items = new ArrayList<>(items.subList(0, limit));
+            nextCursor = items.get(limit - 1).getId();
+        }
+        return BotPage.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Override
+    public void exportBots(Boolean enable, String usernamePrefix, Consumer<BotSummary> consumer) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, username, enable, commands, version FROM telegram_bots WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (enable != null) {
+            sql.append(" AND enable = ?");
+            args.add(enable);
+        }
+        String pattern = toLikePattern(usernamePrefix);
+        if (pattern != null) {
+            sql.append(" AND username LIKE ?");
+            args.add(pattern);
+        }
+        sql.append(" ORDER BY id");
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL 驅動需要以 Integer.MIN_VALUE 開啟逐列串流，否則會先把整個結果集讀進記憶體
+            statement.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, resultSet -> {
+            consumer.accept(BotSummary.builder()
+                    .id(resultSet.getLong("id"))
+                    .username(resultSet.getString("username"))
+                    .enable(resultSet.getObject("enable", Boolean.class))
+                    .commands(resultSet.getString("commands"))
+                    .version(resultSet.getLong("version"))
+                    .build());
+        });
+    }
+
+    /**
+     * 將使用者名稱前綴轉為 LIKE 條件，跳脫其中的萬用字元
+     */
+    private static String toLikePattern(String usernamePrefix) {
+        if (!StringUtils.hasText(usernamePrefix)) {
+            return null;
+        }
+        return usernamePrefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
     @Override
     public List<BotEntity> getEnabledBots() {
         return botRepository.findByEnableTrue();
     }
 
     @Override
-    @Cacheable(value = CacheConfig.BOT_CACHE, key = "#username")
+    @Cacheable(value = CacheConfig.BOT_BY_USERNAME_CACHE, key = "#username")
     public Optional<BotEntity> getBotByUsername(String username) {
         return botRepository.findByUsername(username);
     }
 
     @Override
-    @Cacheable(value = CacheConfig.BOT_CACHE, key = "#id")
+    @Cacheable(value = CacheConfig.BOT_BY_ID_CACHE, key = "#id")
     public Optional<BotEntity> getBotById(Long id) {
         return botRepository.findById(id);
     }
 
     @Override
-    @Transactional
     public BotEntity createBot(BotEntity botEntity) {
         log.info("Create new bot: {}", botEntity.getUsername());
         return saveBot(botEntity);
     }
 
     @Override
-    @Transactional
     public BotEntity updateBot(BotEntity botEntity) {
         log.info("Update bot ID: {}", botEntity.getId());
 
-        Optional<BotEntity> existingBot = getBotById(botEntity.getId());
-        if (existingBot.isEmpty()) {
+        if (!botRepository.existsById(botEntity.getId())) {
             log.warn("Bot not found for update, ID: {}", botEntity.getId());
             return null;
         }
@@ -65,159 +153,253 @@ public class BotServiceImpl implements BotService {
         return saveBot(botEntity);
     }
 
+    /**
+     * 資料與變更通知在同一交易寫入；本節點的路由表、快取與 webhook 在提交後才更新，
+     * 回滾時不會超前資料庫，提交前的並行查詢也不會在清除快取後又放回舊資料
+     */
     @Override
-    @Transactional
-    @CacheEvict(value = CacheConfig.BOT_CACHE, key = "#botEntity.username")
     public BotEntity saveBot(BotEntity botEntity) {
         log.info("Saving bot: {}", botEntity.getUsername());
 
-        // 檢查是否為新機器人
-        boolean isNewBot = botEntity.getId() == null;
-
-        // 檢查機器人狀態變更
-        boolean wasEnabled = false;
-        if (!isNewBot) {
-            Optional<BotEntity> existingBot = botRepository.findById(botEntity.getId());
-            if (existingBot.isPresent()) {
-                wasEnabled = Boolean.TRUE.equals(existingBot.get().getEnable());
-
-                // 如果使用者名稱變更，還需要清除舊使用者名稱的快取
-                if (!existingBot.get().getUsername().equals(botEntity.getUsername())) {
-                    evictBotCache(existingBot.get().getUsername());
-                }
+        SavedBot saved = transactionTemplate.execute(status -> {
+            // 檢查是否為新機器人
+            BotEntity existingBot = botEntity.getId() == null
+                    ? null
+                    : botRepository.findById(botEntity.getId()).orElse(null);
+            boolean isNewBot = existingBot == null;
+
+            // 檢查機器人狀態變更
+            boolean wasEnabled = !isNewBot && Boolean.TRUE.equals(existingBot.getEnable());
+            String previousUsername = isNewBot ? null : existingBot.getUsername();
+
+            // 在已載入的實體上套用變更，由 @Version 遞增版本號
+            BotEntity target = botEntity;
+            if (!isNewBot) {
+                existingBot.setUsername(botEntity.getUsername());
+                existingBot.setToken(botEntity.getToken());
+                existingBot.setEnable(botEntity.getEnable());
+                existingBot.setCommands(botEntity.getCommands());
+                target = existingBot;
             }
+            BotEntity savedBot = botRepository.saveAndFlush(target);
+            BotChangeEvent event = BotChangeEvent.updated(savedBot, previousUsername);
+            botChangeOutbox.append(event);
+            return new SavedBot(savedBot, event, isNewBot, wasEnabled, previousUsername);
+        });
+
+        BotEntity savedBot = saved.bot();
+        applyBotChanges(List.of(saved.event()), List.of(savedBot));
+
+        // 如果使用者名稱變更，還需要清除舊使用者名稱的實例
+        String previousUsername = saved.previousUsername();
+        if (previousUsername != null && !previousUsername.equals(savedBot.getUsername())) {
+            telegramBotRegistry.remove(previousUsername);
+            botManager.updateLocalWebhookStatus(previousUsername, false);
         }
 
-        BotEntity savedBot = botRepository.save(botEntity);
-
         boolean isEnabled = Boolean.TRUE.equals(savedBot.getEnable());
 
         if (isEnabled) {
+            telegramBotRegistry.refresh(savedBot);
+
             // 如果是已啟用的機器人，則註冊 webhook
-            if (isNewBot || !wasEnabled || !botManager.isWebhookRegistered(savedBot.getUsername())) {
+            if (saved.isNew() || !saved.wasEnabled() || !botManager.isWebhookRegistered(savedBot.getUsername())) {
                 log.info("註冊機器人 webhook: {}", savedBot.getUsername());
                 botManager.registerWebhook(savedBot);
             }
-        } else if (wasEnabled) {
+        } else {
             // 如果從啟用變為停用，則取消註冊 webhook
-            if (botManager.isWebhookRegistered(savedBot.getUsername())) {
+            if (saved.wasEnabled() && botManager.isWebhookRegistered(savedBot.getUsername())) {
                 log.info("取消註冊已停用的機器人 webhook: {}", savedBot.getUsername());
                 botManager.deregisterWebhook(savedBot.getUsername());
             }
-        }
-
-        if (savedBot.getId() != null) {
-            evictBotCacheById(savedBot.getId());
+            telegramBotRegistry.remove(savedBot.getUsername());
         }
 
         return savedBot;
     }
 
     @Override
-    @Transactional
-    public void enableBot(Long id) {
+    public BotEntity enableBot(Long id) {
         log.info("Enable bot ID: {}", id);
-        Optional<BotEntity> existingBot = getBotById(id);
-
-        if (existingBot.isEmpty()) {
-            log.warn("Bot not found for enable, ID: {}", id);
-            return;
-        }
+        Change change = transactionTemplate.execute(status -> {
+            BotEntity bot = botRepository.findById(id).orElse(null);
+            if (bot == null) {
+                log.warn("Bot not found for enable, ID: {}", id);
+                return null;
+            }
+            if (Boolean.TRUE.equals(bot.getEnable())) {
+                log.debug("Bot already enabled, username: {}", bot.getUsername());
+                return new Change(bot, null);
+            }
 
-        BotEntity bot = existingBot.get();
-        String username = bot.getUsername();
-        boolean wasEnabled = Boolean.TRUE.equals(bot.getEnable());
+            bot.setEnable(true);
+            BotEntity savedBot = botRepository.saveAndFlush(bot);
+            BotChangeEvent event = BotChangeEvent.updated(savedBot, savedBot.getUsername());
+            botChangeOutbox.append(event);
+            return new Change(savedBot, event);
+        });
 
-        if (wasEnabled) {
-            log.debug("Bot already enabled, username: {}", username);
-            return;
+        if (change == null || change.event() == null) {
+            return change == null ? null : change.bot();
         }
 
-        bot.setEnable(true);
-        botRepository.save(bot);
+        BotEntity savedBot = change.bot();
+        applyBotChanges(List.of(change.event()), List.of(savedBot));
 
-        evictBotCache(username);
-        evictBotCacheById(id);
-
-        log.info("Registering bot webhook: {}", username);
-        botManager.registerWebhook(bot);
+        log.info("Registering bot webhook: {}", savedBot.getUsername());
+        botManager.registerWebhook(savedBot);
+        return savedBot;
     }
 
     @Override
-    @Transactional
-    public void disableBot(Long id) {
+    public BotEntity disableBot(Long id) {
         log.info("Desable bot ID: {}", id);
-        Optional<BotEntity> existingBot = getBotById(id);
-
-        if (existingBot.isEmpty()) {
-            log.warn("Bot not found for disabled, ID: {}", id);
-            return;
-        }
+        Change change = transactionTemplate.execute(status -> {
+            BotEntity bot = botRepository.findById(id).orElse(null);
+            if (bot == null) {
+                log.warn("Bot not found for disabled, ID: {}", id);
+                return null;
+            }
+            if (Boolean.FALSE.equals(bot.getEnable())) {
+                log.info("Bot already disabled, username: {}", bot.getUsername());
+                return new Change(bot, null);
+            }
 
-        BotEntity bot = existingBot.get();
-        String username = bot.getUsername();
+            bot.setEnable(false);
+            BotEntity savedBot = botRepository.saveAndFlush(bot);
+            BotChangeEvent event = BotChangeEvent.updated(savedBot, savedBot.getUsername());
+            botChangeOutbox.append(event);
+            return new Change(savedBot, event);
+        });
 
-        if (Boolean.FALSE.equals(bot.getEnable())) {
-            log.info("Bot already disabled, username: {}", username);
-            return;
+        if (change == null || change.event() == null) {
+            return change == null ? null : change.bot();
         }
 
-        bot.setEnable(false);
-        botRepository.save(bot);
-
-        evictBotCache(username);
-        evictBotCacheById(id);
+        BotEntity savedBot = change.bot();
+        String username = savedBot.getUsername();
+        applyBotChanges(List.of(change.event()), List.of(savedBot));
 
         if (botManager.isWebhookRegistered(username)) {
             log.info("Deregistering webhook: {}", username);
             botManager.deregisterWebhook(username);
         }
+        telegramBotRegistry.remove(username);
+        return savedBot;
     }
 
     @Override
-    @Transactional
     public void deleteBot(Long id) {
         log.info("Deleting bot ID: {}", id);
-        Optional<BotEntity> existingBot = getBotById(id);
+        Change change = transactionTemplate.execute(status -> {
+            BotEntity bot = botRepository.findById(id).orElse(null);
+            if (bot == null) {
+                log.warn("Bot not found for delete, ID: {}", id);
+                return null;
+            }
+
+            botRepository.delete(bot);
+            BotChangeEvent event = BotChangeEvent.deleted(bot);
+            botChangeOutbox.append(event);
+            return new Change(bot, event);
+        });
 
-        if (existingBot.isEmpty()) {
-            log.warn("Bot not found for delete, ID: {}", id);
+        if (change == null) {
             return;
         }
 
-        BotEntity bot = existingBot.get();
+        BotEntity bot = change.bot();
         String username = bot.getUsername();
+        applyBotChange(change.event());
 
+        // 資料列已刪除，以刪除前的實體取消 webhook
         if (botManager.isWebhookRegistered(username)) {
             log.info("Deregistering bot with webhook: {}", username);
-            botManager.deregisterWebhook(username);
+            botManager.deregisterWebhooks(List.of(bot)).join();
         }
-
-        botRepository.deleteById(id);
-
-        evictBotCache(username);
-        evictBotCacheById(id);
+        telegramBotRegistry.remove(username);
 
         log.info("Bot deleted: {}", username);
     }
 
     @Override
-    @CacheEvict(value = CacheConfig.BOT_CACHE, key = "#username")
-    public void evictBotCache(String username) {
-        log.debug("clear bot cache: {}", username);
+    public void applyBotChange(BotChangeEvent event) {
+        applyBotChanges(List.of(event));
     }
 
+    @Override
+    public void applyBotChanges(Collection<BotChangeEvent> events) {
+        applyBotChanges(events, List.of());
+    }
 
     @Override
-    @CacheEvict(value = CacheConfig.BOT_CACHE, key = "#id")
-    public void evictBotCacheById(Long id) {
-        log.debug("clear bot cache: {}", id);
+    public void applyBotChanges(Collection<BotChangeEvent> events, Collection<BotEntity> saved) {
+        List<BotChangeEvent> accepted = new ArrayList<>(events.size());
+        for (BotChangeEvent event : events) {
+            long version = event.version() == null ? 0L : event.version();
+            Long applied = appliedVersions.get(event.botId());
+            if (!event.deleted() && applied != null && version < applied) {
+                log.debug("Ignoring stale bot change {}, applied version: {}", event, applied);
+                continue;
+            }
+            appliedVersions.merge(event.botId(), version, Math::max);
+            accepted.add(event);
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+        botRoutingTable.applyAll(accepted, saved);
+
+        Cache byId = cacheManager.getCache(CacheConfig.BOT_BY_ID_CACHE);
+        Cache byUsername = cacheManager.getCache(CacheConfig.BOT_BY_USERNAME_CACHE);
+
+        for (BotChangeEvent event : accepted) {
+            long version = event.version() == null ? 0L : event.version();
+            evictIfOlder(byId, event.botId(), event, version);
+            if (event.oldUsername() != null) {
+                evictIfOlder(byUsername, event.oldUsername(), event, version);
+            }
+            if (event.newUsername() != null) {
+                evictIfOlder(byUsername, event.newUsername(), event, version);
+            }
+            log.debug("Applied bot change: {}", event);
+        }
+    }
+
+    /**
+     * 只有快取內容不是該機器人目前的版本時才清除，已是最新版本的項目保留
+     */
+    private void evictIfOlder(Cache cache, Object key, BotChangeEvent event, long version) {
+        if (cache == null) {
+            return;
+        }
+
+        Cache.ValueWrapper cached = cache.get(key);
+        if (cached == null) {
+            return;
+        }
+
+        boolean current = !event.deleted()
+                && cached.get() instanceof BotEntity bot
+                && event.botId().equals(bot.getId())
+                && event.newUsername().equals(bot.getUsername())
+                && bot.getVersion() != null
+                && bot.getVersion() >= version;
+        if (!current) {
+            cache.evict(key);
+        }
     }
 
     @Override
-    @CacheEvict(value = CacheConfig.BOT_CACHE, allEntries = true)
     public void evictAllBotCache() {
         log.debug("clear all bot cache");
+        for (String cacheName : List.of(CacheConfig.BOT_BY_USERNAME_CACHE, CacheConfig.BOT_BY_ID_CACHE)) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
     }
 
     @Override
@@ -240,4 +422,14 @@ public class BotServiceImpl implements BotService {
     public long getEnabledBotCount() {
         return getEnabledBots().size();
     }
+
+    /**
+     * 交易內寫入的結果，提交後再套用到本節點
+     */
+    private record Change(BotEntity bot, BotChangeEvent event) {
+    }
+
+    private record SavedBot(BotEntity bot, BotChangeEvent event, boolean isNew, boolean wasEnabled,
+                            String previousUsername) {
+    }
 }
@@ -0,0 +1,199 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.event.WebhookOwnershipChangedEvent;
+import com.example.telegrambotwebhook.repository.ClusterLeaseRepository;
+import com.example.telegrambotwebhook.service.ClusterCoordinator;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+@Slf4j
+@Component
+public class ClusterCoordinatorImpl implements ClusterCoordinator, SmartLifecycle {
+
+    static final String WEBHOOK_LEASE = "webhook-registration";
+    /**
+     * 每個節點各自持有一個以此為前綴的租約作為存活記錄
+     */
+    static final String NODE_LEASE_PREFIX = "node:";
+    /**
+     * 啟動時存取資料庫的元件在 Kafka 監聽器與 web 伺服器之前啟動，租約需先於 webhook 註冊取得
+     */
+    static final int PHASE = 0;
+
+    private final TelegramBotConfig.Cluster config;
+    private final ClusterLeaseRepository clusterLeaseRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String nodeId;
+    private final String nodeLease;
+    private volatile boolean owner;
+    private volatile boolean leaving;
+    private volatile boolean running;
+
+    public ClusterCoordinatorImpl(TelegramBotConfig telegramBotConfig, ClusterLeaseRepository clusterLeaseRepository,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.config = telegramBotConfig.getCluster();
+        this.clusterLeaseRepository = clusterLeaseRepository;
+        this.eventPublisher = eventPublisher;
+        this.nodeId = StringUtils.hasText(config.getNodeId()) ? config.getNodeId() : defaultNodeId();
+        this.nodeLease = NODE_LEASE_PREFIX + nodeId;
+    }
+
+    /**
+     * 取得 webhook 註冊租約；在 context refresh 之後執行，AOT 與 CDS 訓練啟動時不需連線資料庫
+     */
+    @Override
+    public void start() {
+        init();
+        running = true;
+    }
+
+    /**
+     * 在 webhook 取消註冊之後才釋放租約
+     */
+    @Override
+    public void stop() {
+        releaseLease();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void init() {
+        if (!isClustered()) {
+            owner = true;
+            return;
+        }
+
+        log.info("Cluster lease mode enabled, node id: {}", nodeId);
+        try {
+            clusterLeaseRepository.createIfAbsent(WEBHOOK_LEASE);
+            clusterLeaseRepository.createIfAbsent(nodeLease);
+            clusterLeaseRepository.tryAcquire(nodeLease, nodeId, config.getLeaseTtlMs());
+            owner = clusterLeaseRepository.tryAcquire(WEBHOOK_LEASE, nodeId, config.getLeaseTtlMs()) == 1;
+            log.info("Node {} {} webhook registration lease", nodeId, owner ? "acquired" : "did not acquire");
+        } catch (DataAccessException e) {
+            log.error("Acquiring webhook registration lease failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isClustered() {
+        return config.getMode() == TelegramBotConfig.ClusterMode.LEASE;
+    }
+
+    @Override
+    public boolean isWebhookOwner() {
+        return owner;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${telegram-bot.cluster.renew-interval-ms:10000}")
+    public void renewLease() {
+        if (!isClustered()) {
+            return;
+        }
+
+        if (!leaving) {
+            try {
+                clusterLeaseRepository.tryAcquire(nodeLease, nodeId, config.getLeaseTtlMs());
+            } catch (DataAccessException e) {
+                log.error("Renewing node liveness lease failed: {}", e.getMessage());
+            }
+        }
+
+        boolean acquired;
+        try {
+            acquired = clusterLeaseRepository.tryAcquire(WEBHOOK_LEASE, nodeId, config.getLeaseTtlMs()) == 1;
+        } catch (DataAccessException e) {
+            // 無法續約時視為失去租約，避免與新的負責節點同時操作
+            log.error("Renewing webhook registration lease failed: {}", e.getMessage());
+            acquired = false;
+        }
+
+        if (acquired != owner) {
+            owner = acquired;
+            log.info("Node {} {} webhook registration lease", nodeId, acquired ? "acquired" : "lost");
+            eventPublisher.publishEvent(new WebhookOwnershipChangedEvent(acquired));
+        }
+    }
+
+    @Override
+    public boolean hasOtherLiveNodes() {
+        if (!isClustered()) {
+            return false;
+        }
+
+        try {
+            return clusterLeaseRepository.countLiveExcept(NODE_LEASE_PREFIX, nodeLease) > 0;
+        } catch (DataAccessException e) {
+            log.error("Checking live nodes failed: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void leave() {
+        if (!isClustered() || leaving) {
+            return;
+        }
+
+        leaving = true;
+        try {
+            clusterLeaseRepository.release(nodeLease, nodeId);
+            log.info("Node {} left the cluster", nodeId);
+        } catch (DataAccessException e) {
+            log.error("Releasing node liveness lease failed: {}", e.getMessage());
+        }
+    }
+
+    private void releaseLease() {
+        if (!isClustered() || !owner) {
+            return;
+        }
+
+        try {
+            clusterLeaseRepository.release(WEBHOOK_LEASE, nodeId);
+            owner = false;
+            log.info("Node {} released webhook registration lease", nodeId);
+        } catch (DataAccessException e) {
+            log.error("Releasing webhook registration lease failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 未設定 node-id 時使用主機名稱（Kubernetes 中即 pod 名稱），重啟後維持相同的存活租約與 Kafka 消費者群組
+     */
+    private static String defaultNodeId() {
+        String host = System.getenv("HOSTNAME");
+        if (StringUtils.hasText(host)) {
+            return host;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            log.warn("Resolving host name failed, set telegram-bot.cluster.node-id to a unique value per node");
+            return "node";
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.service.BotApiTransport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import java.io.Serializable;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.api.objects.ApiResponse;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+/**
+ * 以單一 java.net.http.HttpClient 實作的傳輸層，HTTP/2 下同一主機的所有請求共用連線多工傳送
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "telegram-bot.transport", name = "type", havingValue = "shared", matchIfMissing = true)
+public class HttpClientBotApiTransport implements BotApiTransport {
+
+    private static final String DEFAULT_BASE_URL = "https://api.telegram.org/bot";
+    private static final TypeReference<ApiResponse<Boolean>> BOOLEAN_RESPONSE = new TypeReference<>() {
+    };
+
+    // 與函式庫相同使用預設設定的 ObjectMapper，避免 Spring 的全域設定影響 Bot API 的序列化
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final Duration requestTimeout;
+
+    public HttpClientBotApiTransport(TelegramBotConfig telegramBotConfig) {
+        TelegramBotConfig.Transport transport = telegramBotConfig.getTransport();
+        this.baseUrl = StringUtils.hasText(telegramBotConfig.getApiBaseUrl())
+                ? telegramBotConfig.getApiBaseUrl()
+                : DEFAULT_BASE_URL;
+        this.requestTimeout = Duration.ofMillis(transport.getRequestTimeoutMs());
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(transport.getConnectTimeoutMs()))
+                .executor(executor)
+                .build();
+        log.info("Using shared Bot API transport for {}", baseUrl);
+    }
+
+    @Override
+    public <T extends Serializable> CompletableFuture<T> executeAsync(String token, BotApiMethod<T> method) {
+        byte[] body;
+        try {
+            method.validate();
+            body = objectMapper.writeValueAsBytes(method);
+        } catch (TelegramApiException | JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return send(token, method.getMethod(), body).thenApply(response -> {
+            try {
+                return method.deserializeResponse(response);
+            } catch (TelegramApiRequestException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setWebhookAsync(String token, SetWebhook setWebhook) {
+        if (setWebhook.getCertificate() != null) {
+            return CompletableFuture.failedFuture(
+                    new TelegramApiException("Shared transport does not upload webhook certificates"));
+        }
+
+        ObjectNode body = objectMapper.createObjectNode().put("url", setWebhook.getUrl());
+        if (setWebhook.getMaxConnections() != null) {
+            body.put("max_connections", setWebhook.getMaxConnections());
+        }
+        if (setWebhook.getAllowedUpdates() != null) {
+            setWebhook.getAllowedUpdates().forEach(body.putArray("allowed_updates")::add);
+        }
+        if (setWebhook.getIpAddress() != null) {
+            body.put("ip_address", setWebhook.getIpAddress());
+        }
+        if (setWebhook.getDropPendingUpdates() != null) {
+            body.put("drop_pending_updates", setWebhook.getDropPendingUpdates());
+        }
+        if (setWebhook.getSecretToken() != null) {
+            body.put("secret_token", setWebhook.getSecretToken());
+        }
+
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return send(token, SetWebhook.PATH, payload).thenApply(response -> {
+            try {
+                ApiResponse<Boolean> result = objectMapper.readValue(response, BOOLEAN_RESPONSE);
+                if (!result.getOk()) {
+                    throw new CompletionException(new TelegramApiRequestException("Error setting webhook", result));
+                }
+                return result.getResult();
+            } catch (JsonProcessingException e) {
+                throw new CompletionException(new TelegramApiRequestException("Unable to deserialize response", e));
+            }
+        });
+    }
+
+    /**
+     * 送出請求並取得回應內容，錯誤狀態碼的內容同樣交由呼叫端解析為 API 錯誤
+     */
+    private CompletableFuture<String> send(String token, String method, byte[] body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + token + "/" + method))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .thenApply(HttpResponse::body);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,40 +1,90 @@
 package com.example.telegrambotwebhook.service.impl;
 
-import com.example.telegrambotwebhook.entity.BotEntity;
-import com.example.telegrambotwebhook.service.BotService;
+import com.example.telegrambotwebhook.metrics.BotMetricTags;
+import com.example.telegrambotwebhook.routing.BotRoute;
+import com.example.telegrambotwebhook.service.BotRoutingTable;
 import com.example.telegrambotwebhook.service.MessageHandlerService;
+import com.example.telegrambotwebhook.service.OutboundMessageScheduler;
 import com.example.telegrambotwebhook.service.TelegramBot;
+import com.example.telegrambotwebhook.service.TelegramBotRegistry;
+import com.example.telegrambotwebhook.update.UpdateEnvelope;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
-import org.telegram.telegrambots.meta.api.objects.Update;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MessageHandlerServiceImpl implements MessageHandlerService {
 
-    private final BotService botService;
+    private final BotRoutingTable botRoutingTable;
+    private final TelegramBotRegistry telegramBotRegistry;
+    private final OutboundMessageScheduler outboundMessageScheduler;
+    private final MeterRegistry meterRegistry;
+    private final BotMetricTags botMetricTags;
 
     @Override
-    public BotApiMethod<?> processUpdate(String username, Update update) {
-        log.debug("Process Message From Bot {}, Update: {}", username, update);
+    public BotApiMethod<?> processUpdate(String username, UpdateEnvelope envelope) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            TelegramBot bot = resolveBot(username, envelope);
+            if (bot == null) {
+                outcome = "unknown_bot";
+                return null;
+            }
 
-        BotEntity botEntity = botService.getBotByUsername(username)
-                .orElse(null);
+            BotApiMethod<?> reply = bot.onUpdate(envelope);
+            outcome = reply == null ? "no_reply" : "replied";
+            return reply;
+        } finally {
+            record(sample, username, outcome);
+        }
+    }
+
+    @Override
+    public void processUpdateAndReply(String username, UpdateEnvelope envelope) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            TelegramBot bot = resolveBot(username, envelope);
+            if (bot == null) {
+                outcome = "unknown_bot";
+                return;
+            }
 
-        if (botEntity == null || !Boolean.TRUE.equals(botEntity.getEnable())) {
+            BotApiMethod<?> reply = bot.onUpdate(envelope);
+            if (reply == null) {
+                outcome = "no_reply";
+            } else {
+                outcome = outboundMessageScheduler.submit(bot, envelope.getChatId(), reply) ? "replied" : "rejected";
+            }
+        } finally {
+            record(sample, username, outcome);
+        }
+    }
+
+    private void record(Timer.Sample sample, String username, String outcome) {
+        sample.stop(Timer.builder("telegram.update.process")
+                .description("處理單一更新的時間")
+                .tag(BotMetricTags.TAG, botMetricTags.of(username))
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private TelegramBot resolveBot(String username, UpdateEnvelope envelope) {
+        log.debug("Process Message From Bot {}, Update: {}", username, envelope);
+
+        // 路由表只收錄啟用中的機器人
+        BotRoute route = botRoutingTable.lookup(username);
+        if (route == null) {
             log.warn("Bot Not Found or Not Enabled: {}", username);
             return null;
         }
 
-        TelegramBot tempBot = new TelegramBot(
-                botEntity.getToken(),
-                botEntity.getUsername(),
-                null  // 不需要 botPath，因為只用於處理消息
-        );
-
-        return tempBot.onWebhookUpdateReceived(update);
+        return telegramBotRegistry.getBot(route);
     }
 }
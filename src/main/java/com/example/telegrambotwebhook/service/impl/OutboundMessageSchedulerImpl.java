@@ -0,0 +1,379 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.metrics.BotMetricTags;
+import com.example.telegrambotwebhook.service.OutboundMessageScheduler;
+import com.example.telegrambotwebhook.service.TelegramBot;
+import com.example.telegrambotwebhook.util.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+@Slf4j
+@Component
+public class OutboundMessageSchedulerImpl implements OutboundMessageScheduler, SmartLifecycle {
+
+    /**
+     * 在 webhook 取消註冊之前清空
+     */
+    static final int PHASE = ClusterCoordinatorImpl.PHASE + 2;
+
+    private final TelegramBotConfig.Outbound config;
+    private final MeterRegistry meterRegistry;
+    private final BotMetricTags botMetricTags;
+    private final DelayQueue<ScheduledSend> queue = new DelayQueue<>();
+    private final Map<String, BotLimiter> limiters = new ConcurrentHashMap<>();
+    private final AtomicInteger totalBacklog = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Thread dispatcher;
+    private final long drainTimeoutMs;
+    private volatile boolean running = true;
+
+    public OutboundMessageSchedulerImpl(TelegramBotConfig telegramBotConfig, MeterRegistry meterRegistry,
+                                        BotMetricTags botMetricTags) {
+        this.config = telegramBotConfig.getOutbound();
+        this.meterRegistry = meterRegistry;
+        this.botMetricTags = botMetricTags;
+        this.drainTimeoutMs = telegramBotConfig.getShutdown().getDrainTimeoutMs();
+
+        Gauge.builder("telegram.outbound.backlog.total", this, OutboundMessageScheduler::getTotalBacklog)
+                .description("所有機器人尚未送出的訊息數量")
+                .register(meterRegistry);
+
+        this.dispatcher = Thread.ofPlatform().name("outbound-dispatcher").daemon().start(this::dispatchLoop);
+    }
+
+    @Override
+    public boolean submit(TelegramBot bot, long chatId, BotApiMethod<?> method) {
+        BotLimiter limiter = limiters.computeIfAbsent(bot.getBotUsername(), BotLimiter::new);
+        // 先佔用總量名額，超過上限時歸還，避免同時提交時超出上限
+        if (totalBacklog.incrementAndGet() > config.getMaxBacklog()) {
+            totalBacklog.decrementAndGet();
+            limiter.rejectedTotalCounter.increment();
+            log.debug("Outbound backlog is full, rejected {} for bot {}", method.getMethod(), limiter.username);
+            return false;
+        }
+        if (!limiter.enqueue(new ScheduledSend(bot, limiter, chatId, method, System.nanoTime(), 1,
+                sequence.getAndIncrement()))) {
+            totalBacklog.decrementAndGet();
+            limiter.rejectedChatCounter.increment();
+            log.debug("Outbound backlog of chat {} is full, rejected {} for bot {}",
+                    chatId, method.getMethod(), limiter.username);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int getBacklog(String username) {
+        BotLimiter limiter = limiters.get(username);
+        return limiter == null ? 0 : limiter.backlog.get();
+    }
+
+    @Override
+    public int getTotalBacklog() {
+        return totalBacklog.get();
+    }
+
+    /**
+     * 依序取出已到期的發送，先確認 Bot 與聊天室的權杖桶都有餘量才送出，否則延後到可用時間；
+     * 停止後持續到所有訊息（包含排在聊天室佇列中的）都送出或放棄為止
+     */
+    private void dispatchLoop() {
+        while (running || getTotalBacklog() > 0) {
+            ScheduledSend send;
+            try {
+                send = queue.poll(500, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (send == null) {
+                continue;
+            }
+
+            long now = System.nanoTime();
+            long delay = send.limiter.delayNanos(send.chatId, now);
+            if (delay > 0) {
+                queue.put(send.withReadyAt(now + delay));
+                continue;
+            }
+
+            send.limiter.consume(send.chatId, now);
+            inFlight.incrementAndGet();
+            // 非同步送出，等待回應時不佔用執行緒，由傳輸層的回呼處理結果
+            send.bot.callAsync(send.method).whenComplete((result, error) -> {
+                try {
+                    onComplete(send, error);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void onComplete(ScheduledSend send, Throwable error) {
+        BotLimiter limiter = send.limiter;
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+        if (cause == null) {
+            limiter.backlog.decrementAndGet();
+            totalBacklog.decrementAndGet();
+            limiter.sentCounter.increment();
+            limiter.release(send);
+        } else if (cause instanceof TelegramApiRequestException e) {
+            Integer retryAfter = e.getParameters() != null ? e.getParameters().getRetryAfter() : null;
+            if (retryAfter != null) {
+                // Telegram 要求暫停時，整個 Bot 都暫停發送到指定時間
+                long resumeAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(retryAfter);
+                limiter.pausedUntilNanos = resumeAt;
+                log.warn("Bot {} is rate limited by Telegram, retrying after {}s", limiter.username, retryAfter);
+                retry(send, resumeAt, e);
+            } else if (e.getErrorCode() != null && e.getErrorCode() >= 400 && e.getErrorCode() < 500) {
+                fail(send, e);
+            } else {
+                retry(send, System.nanoTime() + backoffNanos(send.attempt), e);
+            }
+        } else if (cause instanceof TelegramApiException || cause instanceof IOException) {
+            // 連線逾時、重設等網路錯誤與函式庫包裝後的錯誤一樣視為暫時性
+            retry(send, System.nanoTime() + backoffNanos(send.attempt), cause);
+        } else {
+            fail(send, cause);
+        }
+    }
+
+    private void retry(ScheduledSend send, long readyAt, Throwable cause) {
+        if (send.attempt >= config.getMaxAttempts()) {
+            fail(send, cause);
+            return;
+        }
+        send.limiter.retriedCounter.increment();
+        queue.put(send.retryAt(readyAt));
+    }
+
+    private void fail(ScheduledSend send, Throwable cause) {
+        send.limiter.backlog.decrementAndGet();
+        totalBacklog.decrementAndGet();
+        send.limiter.failedCounter.increment();
+        log.error("Sending {} for bot {} failed after {} attempts with message: {}",
+                send.method.getMethod(), send.limiter.username, send.attempt, cause.getMessage());
+        send.limiter.release(send);
+    }
+
+    private long backoffNanos(int attempt) {
+        return TimeUnit.MILLISECONDS.toNanos(config.getRetryBackoffMs() << Math.min(attempt - 1, 10));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * 在期限內送出佇列中的訊息並等待已送出的請求收到回應
+     */
+    @Override
+    public void stop() {
+        log.info("Draining outbound scheduler, backlog: {}", getTotalBacklog());
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMs);
+        try {
+            if (!dispatcher.join(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())))) {
+                log.warn("Outbound dispatcher did not drain in time, dropping {} pending sends", queue.size());
+                dispatcher.interrupt();
+            }
+            while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Outbound scheduler drained, in flight: {}", inFlight.get());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * 單一機器人的限流狀態：Bot 層級的權杖桶，以及其下每個聊天室的權杖桶與待送佇列
+     */
+    private final class BotLimiter {
+
+        private final String username;
+        private final TokenBucket botBucket;
+        private final Cache<Long, TokenBucket> chatBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(2, TimeUnit.MINUTES)
+                .build();
+        /**
+         * 每個聊天室依提交順序排隊，只有最前面的一則在排程或送出中，重試期間後面的訊息繼續等待
+         */
+        private final Map<Long, Deque<ScheduledSend>> chatQueues = new HashMap<>();
+        private final AtomicInteger backlog = new AtomicInteger();
+        private final Counter sentCounter;
+        private final Counter retriedCounter;
+        private final Counter failedCounter;
+        private final Counter rejectedChatCounter;
+        private final Counter rejectedTotalCounter;
+        private volatile long pausedUntilNanos;
+
+        private BotLimiter(String username) {
+            this.username = username;
+            this.botBucket = new TokenBucket(1, config.getPerBotPerSecond(), System.nanoTime());
+            this.pausedUntilNanos = System.nanoTime();
+
+            String tag = botMetricTags.of(username);
+            this.sentCounter = Counter.builder("telegram.outbound.sent")
+                    .description("已送出的訊息數量")
+                    .tag(BotMetricTags.TAG, tag)
+                    .register(meterRegistry);
+            this.retriedCounter = Counter.builder("telegram.outbound.retried")
+                    .description("因限流或暫時性錯誤而重試的次數")
+                    .tag(BotMetricTags.TAG, tag)
+                    .register(meterRegistry);
+            this.failedCounter = Counter.builder("telegram.outbound.failed")
+                    .description("放棄發送的訊息數量")
+                    .tag(BotMetricTags.TAG, tag)
+                    .register(meterRegistry);
+            this.rejectedChatCounter = rejectedCounter(tag, "chat");
+            this.rejectedTotalCounter = rejectedCounter(tag, "total");
+            // 歸入 other 的機器人共用計數器，但 gauge 只能對應單一來源，改由 backlog.total 涵蓋
+            if (!BotMetricTags.OTHER.equals(tag)) {
+                Gauge.builder("telegram.outbound.backlog", backlog, AtomicInteger::get)
+                        .description("尚未送出的訊息數量")
+                        .tag(BotMetricTags.TAG, tag)
+                        .register(meterRegistry);
+            }
+        }
+
+        private Counter rejectedCounter(String tag, String reason) {
+            return Counter.builder("telegram.outbound.rejected")
+                    .description("待送訊息超過上限而拒絕的數量")
+                    .tag(BotMetricTags.TAG, tag)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * 聊天室待送的訊息已達上限時不排入並回傳 false
+         */
+        private boolean enqueue(ScheduledSend send) {
+            if (send.chatId != 0L) {
+                synchronized (chatQueues) {
+                    Deque<ScheduledSend> pending = chatQueues.computeIfAbsent(send.chatId, id -> new ArrayDeque<>());
+                    if (pending.size() >= config.getMaxBacklogPerChat()) {
+                        return false;
+                    }
+                    pending.addLast(send);
+                    backlog.incrementAndGet();
+                    if (pending.size() > 1) {
+                        return true;
+                    }
+                }
+            } else {
+                backlog.incrementAndGet();
+            }
+            queue.put(send);
+            return true;
+        }
+
+        /**
+         * 聊天室最前面的訊息已送出或放棄，排入下一則
+         */
+        private void release(ScheduledSend send) {
+            if (send.chatId == 0L) {
+                return;
+            }
+            ScheduledSend next;
+            synchronized (chatQueues) {
+                Deque<ScheduledSend> pending = chatQueues.get(send.chatId);
+                pending.pollFirst();
+                next = pending.peekFirst();
+                if (next == null) {
+                    chatQueues.remove(send.chatId);
+                }
+            }
+            if (next != null) {
+                queue.put(next);
+            }
+        }
+
+        private long delayNanos(long chatId, long now) {
+            long delay = Math.max(0L, pausedUntilNanos - now);
+            delay = Math.max(delay, botBucket.delayNanos(now));
+            if (chatId != 0L) {
+                delay = Math.max(delay, chatBucket(chatId, now).delayNanos(now));
+            }
+            return delay;
+        }
+
+        private void consume(long chatId, long now) {
+            botBucket.consume(now);
+            if (chatId != 0L) {
+                chatBucket(chatId, now).consume(now);
+            }
+        }
+
+        /**
+         * 私人聊天每秒一則，群組（負數 ID）每分鐘 20 則
+         */
+        private TokenBucket chatBucket(long chatId, long now) {
+            return chatBuckets.get(chatId, id -> id < 0
+                    ? new TokenBucket(1, config.getPerGroupPerMinute() / 60d, now)
+                    : new TokenBucket(1, config.getPerChatPerSecond(), now));
+        }
+    }
+
+    private record ScheduledSend(TelegramBot bot, BotLimiter limiter, long chatId, BotApiMethod<?> method,
+                                 long readyAtNanos, int attempt, long sequence) implements Delayed {
+
+        private ScheduledSend withReadyAt(long readyAt) {
+            return new ScheduledSend(bot, limiter, chatId, method, readyAt, attempt, sequence);
+        }
+
+        private ScheduledSend retryAt(long readyAt) {
+            return new ScheduledSend(bot, limiter, chatId, method, readyAt, attempt + 1, sequence);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            ScheduledSend that = (ScheduledSend) other;
+            int result = Long.compare(readyAtNanos, that.readyAtNanos);
+            return result != 0 ? result : Long.compare(sequence, that.sequence);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import com.example.telegrambotwebhook.command.CommandDispatcherFactory;
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.routing.BotRoute;
+import com.example.telegrambotwebhook.service.BotApiTransport;
+import com.example.telegrambotwebhook.service.TelegramBot;
+import com.example.telegrambotwebhook.service.TelegramBotRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TelegramBotRegistryImpl implements TelegramBotRegistry {
+
+    private final TelegramBotConfig telegramBotConfig;
+    private final CommandDispatcherFactory commandDispatcherFactory;
+    // telegram-bot.transport.type=per-bot 時不存在，改用函式庫內建的客戶端
+    private final ObjectProvider<BotApiTransport> botApiTransport;
+    private final Map<String, TelegramBot> bots = new ConcurrentHashMap<>();
+    // 沒有共用傳輸層時所有機器人共用的虛擬執行緒，隨 context 關閉
+    private final ExecutorService blockingCalls = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Override
+    public TelegramBot getBot(BotRoute route) {
+        TelegramBot bot = bots.get(route.username());
+        if (bot != null && bot.matches(route.token(), route.commands())) {
+            return bot;
+        }
+
+        return bots.compute(route.username(),
+                (key, existing) -> reuseOrCreate(existing, route.token(), key, route.commands()));
+    }
+
+    @Override
+    public TelegramBot refresh(BotEntity botEntity) {
+        return bots.compute(botEntity.getUsername(), (key, existing) ->
+                reuseOrCreate(existing, botEntity.getToken(), key, botEntity.getCommands()));
+    }
+
+    @Override
+    public void remove(String username) {
+        TelegramBot removed = bots.remove(username);
+        if (removed != null) {
+            removed.close();
+            log.debug("Removed bot instance: {}", username);
+        }
+    }
+
+    @Override
+    public void clear() {
+        log.debug("Removing all {} bot instances", bots.size());
+        bots.keySet().forEach(this::remove);
+    }
+
+    /**
+     * 在傳出訊息的排程停止之後執行，關閉所有實例與阻塞式呼叫的執行緒
+     */
+    @PreDestroy
+    public void shutdown() {
+        clear();
+        blockingCalls.shutdown();
+    }
+
+    @Override
+    public int size() {
+        return bots.size();
+    }
+
+    /**
+     * token 與指令設定未變更時沿用既有實例，否則建立新實例並關閉被取代的實例
+     */
+    private TelegramBot reuseOrCreate(TelegramBot existing, String token, String username, String commands) {
+        if (existing != null && existing.matches(token, commands)) {
+            return existing;
+        }
+        if (existing != null) {
+            log.info("Token or commands of bot {} changed, rebuilding instance", username);
+            existing.close();
+        }
+        return createBot(token, username, commands);
+    }
+
+    private TelegramBot createBot(String token, String username, String commands) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        // 未設定時使用官方 Bot API，壓力測試時可指向本機的模擬伺服器
+        if (StringUtils.hasText(telegramBotConfig.getApiBaseUrl())) {
+            options.setBaseUrl(telegramBotConfig.getApiBaseUrl());
+        }
+
+        return new TelegramBot(
+                options,
+                token,
+                username,
+                telegramBotConfig.getRegisterPath() + "/" + username,
+                commands,
+                commandDispatcherFactory.create(username, commands),
+                botApiTransport.getIfAvailable(),
+                blockingCalls
+        );
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.repository.ProcessedUpdateRepository;
+import com.example.telegrambotwebhook.service.UpdateDeduplicator;
+import com.example.telegrambotwebhook.util.UpdateIdWindow;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 先以每個機器人的 update_id 視窗在本節點去除重複；設定為 database 時，本節點未見過的更新再以資料庫確認，
+ * 涵蓋 nginx 將 Telegram 重送的更新轉給其他節點的情況
+ */
+@Slf4j
+@Component
+public class UpdateDeduplicatorImpl implements UpdateDeduplicator {
+
+    private final TelegramBotConfig.Dedup config;
+    private final ProcessedUpdateRepository processedUpdateRepository;
+    private final Cache<String, UpdateIdWindow> windows;
+    private final Counter localDuplicateCounter;
+    private final Counter clusterDuplicateCounter;
+
+    public UpdateDeduplicatorImpl(TelegramBotConfig telegramBotConfig,
+                                  ProcessedUpdateRepository processedUpdateRepository,
+                                  MeterRegistry meterRegistry) {
+        this.config = telegramBotConfig.getDedup();
+        this.processedUpdateRepository = processedUpdateRepository;
+        // Telegram 重送只會持續一段時間，閒置的機器人視窗可以釋放
+        this.windows = Caffeine.newBuilder()
+                .expireAfterAccess(config.getRetentionMinutes(), TimeUnit.MINUTES)
+                .build();
+        this.localDuplicateCounter = duplicateCounter(meterRegistry, "local");
+        this.clusterDuplicateCounter = duplicateCounter(meterRegistry, "database");
+    }
+
+    private static Counter duplicateCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("telegram.update.duplicates")
+                .description("被判定為 Telegram 重送而略過的更新數量")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean markIfNew(String username, int updateId) {
+        if (!config.isEnabled()) {
+            return true;
+        }
+
+        UpdateIdWindow window = windowOf(username);
+        UpdateIdWindow.Result result;
+        synchronized (window) {
+            result = window.mark(updateId);
+        }
+        if (result != UpdateIdWindow.Result.NEW) {
+            localDuplicateCounter.increment();
+            log.debug("Dropping duplicate update {} for bot {} ({})", updateId, username, result);
+            return false;
+        }
+
+        if (config.getStore() == TelegramBotConfig.DedupStore.DATABASE && !markInDatabase(username, updateId)) {
+            clusterDuplicateCounter.increment();
+            log.debug("Dropping update {} for bot {} already processed by another node", updateId, username);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void forget(String username, int updateId) {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        UpdateIdWindow window = windows.getIfPresent(username);
+        if (window != null) {
+            synchronized (window) {
+                window.unmark(updateId);
+            }
+        }
+
+        if (config.getStore() == TelegramBotConfig.DedupStore.DATABASE) {
+            try {
+                processedUpdateRepository.unmark(keyOf(username, updateId));
+            } catch (DataAccessException e) {
+                log.warn("Unmarking update {} for bot {} failed with message: {}", updateId, username, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 定期刪除超過保留時間的處理記錄，多個節點同時執行也不影響結果
+     */
+    @Scheduled(fixedDelayString = "${telegram-bot.dedup.cleanup-interval-ms:60000}")
+    public void deleteExpired() {
+        if (!config.isEnabled() || config.getStore() != TelegramBotConfig.DedupStore.DATABASE) {
+            return;
+        }
+
+        try {
+            int deleted = processedUpdateRepository.deleteExpired(config.getRetentionMinutes());
+            if (deleted > 0) {
+                log.debug("Deleted {} expired processed update records", deleted);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Deleting expired processed updates failed with message: {}", e.getMessage());
+        }
+    }
+
+    private UpdateIdWindow windowOf(String username) {
+        UpdateIdWindow window = windows.getIfPresent(username);
+        if (window == null) {
+            window = windows.get(username, key -> new UpdateIdWindow(config.getWindowSize()));
+        }
+        return window;
+    }
+
+    /**
+     * 資料庫無法使用時不阻擋更新，寧可重複處理也不遺漏
+     */
+    private boolean markInDatabase(String username, int updateId) {
+        try {
+            return processedUpdateRepository.markProcessed(keyOf(username, updateId)) > 0;
+        } catch (DataAccessException e) {
+            log.warn("Marking update {} for bot {} failed with message: {}", updateId, username, e.getMessage());
+            return true;
+        }
+    }
+
+    private static String keyOf(String username, int updateId) {
+        return username + ":" + updateId;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.service.MessageHandlerService;
+import com.example.telegrambotwebhook.service.UpdateDispatcher;
+import com.example.telegrambotwebhook.update.UpdateEnvelope;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class UpdateDispatcherImpl implements UpdateDispatcher, SmartLifecycle {
+
+    // 通道已滿時每段期間最多記錄一次警告，其餘只計入 telegram.ingestion.rejected
+    private static final long FULL_WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final MessageHandlerService messageHandlerService;
+    private final Lane[] lanes;
+    private final long drainTimeoutMs;
+    // 只有 ASYNC 模式使用通道，其他模式不啟動通道執行緒
+    private final boolean enabled;
+    private final AtomicLong nextFullWarningAt = new AtomicLong(System.nanoTime());
+    private volatile boolean running;
+
+    public UpdateDispatcherImpl(TelegramBotConfig telegramBotConfig, MessageHandlerService messageHandlerService,
+                                MeterRegistry meterRegistry) {
+        this.messageHandlerService = messageHandlerService;
+        this.drainTimeoutMs = telegramBotConfig.getShutdown().getDrainTimeoutMs();
+
+        TelegramBotConfig.Ingestion ingestion = telegramBotConfig.getIngestion();
+        this.enabled = ingestion.getMode() == TelegramBotConfig.IngestionMode.ASYNC;
+        this.lanes = new Lane[ingestion.getLanes()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(i, ingestion.getLaneQueueCapacity(), meterRegistry);
+        }
+
+        Gauge.builder("telegram.ingestion.queue.depth", this, UpdateDispatcher::getQueueDepth)
+                .description("所有通道中等待處理的更新數量")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean dispatch(String username, UpdateEnvelope envelope) {
+        if (!running) {
+            log.debug("Update dispatcher is stopped, rejected update {} for bot {}", envelope.getUpdateId(), username);
+            return false;
+        }
+
+        Lane lane = lanes[laneOf(username, envelope.getChatId())];
+        if (!lane.queue.offer(new PendingUpdate(username, envelope))) {
+            lane.rejectedCounter.increment();
+            warnFull(lane, envelope.getUpdateId(), username);
+            return false;
+        }
+
+        lane.acceptedCounter.increment();
+        return true;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Lane lane : lanes) {
+            depth += lane.queue.size();
+        }
+        return depth;
+    }
+
+    @Override
+    public int getLaneDepth(int lane) {
+        return lanes[lane].queue.size();
+    }
+
+    @Override
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    private void warnFull(Lane lane, Integer updateId, String username) {
+        long now = System.nanoTime();
+        long next = nextFullWarningAt.get();
+        if (now - next >= 0 && nextFullWarningAt.compareAndSet(next, now + FULL_WARNING_INTERVAL_NANOS)) {
+            log.warn("Update lane {} is full, rejected update {} for bot {}; further rejections in the next {} s "
+                            + "are only counted", lane.index, updateId, username,
+                    TimeUnit.NANOSECONDS.toSeconds(FULL_WARNING_INTERVAL_NANOS));
+        }
+    }
+
+    private int laneOf(String username, long chatId) {
+        int hash = 31 * username.hashCode() + Long.hashCode(chatId);
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, lanes.length);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        // 先標記為執行中，通道執行緒啟動後才不會立即結束
+        running = true;
+        for (Lane lane : lanes) {
+            lane.start();
+        }
+        log.info("Started {} update lanes", lanes.length);
+    }
+
+    /**
+     * web 伺服器停止後才執行，此時不會再有新的更新，在期限內處理完通道中已排入的更新
+     */
+    @Override
+    public void stop() {
+        log.info("Draining update dispatcher, pending updates: {}", getQueueDepth());
+        running = false;
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMs);
+        for (Lane lane : lanes) {
+            if (lane.thread == null) {
+                continue;
+            }
+            try {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0 || !lane.thread.join(Duration.ofMillis(remaining))) {
+                    log.warn("Update lane {} did not drain in time, dropping {} pending updates",
+                            lane.index, lane.queue.size());
+                    lane.thread.interrupt();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        log.info("Update dispatcher drained");
+    }
+
+    /**
+     * 非 ASYNC 模式下不啟動通道，之後也不需要停止
+     */
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 在發送佇列之前停止，處理時產生的回覆仍可送出
+     */
+    @Override
+    public int getPhase() {
+        return OutboundMessageSchedulerImpl.PHASE + 1;
+    }
+
+    private record PendingUpdate(String username, UpdateEnvelope envelope) {
+    }
+
+    /**
+     * 單一消費者的處理通道，確保通道內的更新依 FIFO 順序處理
+     */
+    private final class Lane implements Runnable {
+
+        private final int index;
+        private final BlockingQueue<PendingUpdate> queue;
+        private final Counter acceptedCounter;
+        private final Counter rejectedCounter;
+        private Thread thread;
+
+        private Lane(int index, int capacity, MeterRegistry meterRegistry) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+
+            String lane = String.valueOf(index);
+            this.acceptedCounter = Counter.builder("telegram.ingestion.accepted")
+                    .description("放入通道佇列的更新數量")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            this.rejectedCounter = Counter.builder("telegram.ingestion.rejected")
+                    .description("因通道佇列已滿而被拒絕的更新數量")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            Gauge.builder("telegram.ingestion.lane.depth", queue, BlockingQueue::size)
+                    .description("通道中等待處理的更新數量")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            Gauge.builder("telegram.ingestion.lane.saturation", queue, q -> (double) q.size() / capacity)
+                    .description("通道佇列的使用比例")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+        }
+
+        private void start() {
+            thread = Thread.ofVirtual().name("update-lane-" + index).start(this);
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                PendingUpdate pending;
+                try {
+                    pending = queue.poll(500, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (pending != null) {
+                    process(pending);
+                }
+            }
+        }
+
+        private void process(PendingUpdate pending) {
+            try {
+                messageHandlerService.processUpdateAndReply(pending.username(), pending.envelope());
+            } catch (Exception e) {
+                log.error("Processing update {} for bot {} failed with message: {}",
+                        pending.envelope().getUpdateId(), pending.username(), e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import com.example.telegrambotwebhook.service.ClusterCoordinator;
+import com.example.telegrambotwebhook.service.WebhookIntake;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * 關閉流程的第一步：在 Kafka 監聽器與 web 伺服器停止之前拒絕新的 webhook、讓 readiness 失敗，
+ * 並停止回報本節點存活。之後依序由 web 伺服器等待處理中的請求、各佇列在期限內清空，
+ * 最後由 {@link BotManagerImpl} 判斷是否為最後一個節點而取消 webhook。
+ */
+@Slf4j
+@Component
+public class WebhookIntakeImpl implements WebhookIntake, SmartLifecycle {
+
+    private final ClusterCoordinator clusterCoordinator;
+    private final ApplicationEventPublisher eventPublisher;
+    private volatile boolean accepting = true;
+
+    public WebhookIntakeImpl(ClusterCoordinator clusterCoordinator, ApplicationEventPublisher eventPublisher) {
+        this.clusterCoordinator = clusterCoordinator;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public boolean isAccepting() {
+        return accepting;
+    }
+
+    @Override
+    public void start() {
+        accepting = true;
+    }
+
+    @Override
+    public void stop() {
+        accepting = false;
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        clusterCoordinator.leave();
+        log.info("Stopped accepting webhooks, draining in-flight updates");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return accepting;
+    }
+
+    /**
+     * 最先停止
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+}
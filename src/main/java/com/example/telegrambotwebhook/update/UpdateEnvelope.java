@@ -0,0 +1,80 @@
+package com.example.telegrambotwebhook.update;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import lombok.Getter;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * 只包含路由所需欄位的更新，完整的 Update 物件在第一次取用時才反序列化
+ */
+public final class UpdateEnvelope {
+
+    @Getter
+    private final Integer updateId;
+    @Getter
+    private final UpdateType type;
+    @Getter
+    private final long chatId;
+    @Getter
+    private final String text;
+    private final byte[] payload;
+    private final ObjectMapper objectMapper;
+    private volatile Update update;
+
+    UpdateEnvelope(Integer updateId, UpdateType type, long chatId, String text,
+                   byte[] payload, ObjectMapper objectMapper) {
+        this.updateId = updateId;
+        this.type = type;
+        this.chatId = chatId;
+        this.text = text;
+        this.payload = payload;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 是否為帶有文字的訊息
+     */
+    public boolean hasText() {
+        return type == UpdateType.MESSAGE && text != null;
+    }
+
+    /**
+     * 原始的更新 JSON
+     */
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    /**
+     * 取得完整的 Update 物件，第一次呼叫時才反序列化
+     *
+     * @return 完整的 Update 物件
+     * @throws UncheckedIOException 如果反序列化失敗
+     */
+    public Update getUpdate() {
+        Update result = update;
+        if (result == null) {
+            try {
+                result = objectMapper.readValue(payload, Update.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Materializing update " + updateId + " failed", e);
+            }
+            update = result;
+        }
+        return result;
+    }
+
+    /**
+     * 完整的 Update 物件是否已反序列化
+     */
+    public boolean isMaterialized() {
+        return update != null;
+    }
+
+    @Override
+    public String toString() {
+        return "UpdateEnvelope(updateId=" + updateId + ", type=" + type + ", chatId=" + chatId + ")";
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.telegrambotwebhook.update;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+
+/**
+ * 以串流方式只讀取路由所需的欄位（update_id、種類、聊天室 ID、文字），其餘內容直接略過
+ */
+@Component
+public class UpdateEnvelopeParser {
+
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+
+    public UpdateEnvelopeParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * 解析更新的路由欄位
+     *
+     * @param payload 原始的更新 JSON
+     * @return 更新的路由資訊
+     * @throws IOException 如果內容不是合法的更新 JSON
+     */
+    public UpdateEnvelope parse(byte[] payload) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Update must be a JSON object");
+            }
+
+            Integer updateId = null;
+            UpdateType type = UpdateType.UNKNOWN;
+            RoutingFields fields = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("update_id".equals(field)) {
+                    updateId = parser.getIntValue();
+                    continue;
+                }
+
+                UpdateType fieldType = UpdateType.fromField(field);
+                if (fieldType == null || fields != null || value != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                type = fieldType;
+                fields = readRoutingFields(parser, fieldType.isMessageLike());
+            }
+
+            if (fields == null) {
+                return new UpdateEnvelope(updateId, type, 0L, null, payload, objectMapper);
+            }
+            return new UpdateEnvelope(updateId, type, fields.routingChatId(), fields.text, payload, objectMapper);
+        }
+    }
+
+    /**
+     * 讀取更新內容物件中的 chat、message、from 與 text 欄位
+     */
+    private RoutingFields readRoutingFields(JsonParser parser, boolean readText) throws IOException {
+        RoutingFields fields = new RoutingFields();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if (value == JsonToken.START_OBJECT && "chat".equals(field)) {
+                fields.chatId = readId(parser);
+            } else if (value == JsonToken.START_OBJECT && "from".equals(field)) {
+                fields.fromId = readId(parser);
+            } else if (value == JsonToken.START_OBJECT && "message".equals(field)) {
+                fields.messageChatId = readRoutingFields(parser, false).chatId;
+            } else if (readText && value == JsonToken.VALUE_STRING && "text".equals(field)) {
+                fields.text = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return fields;
+    }
+
+    private long readId(JsonParser parser) throws IOException {
+        long id = 0L;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("id".equals(field)) {
+                id = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return id;
+    }
+
+    private static final class RoutingFields {
+
+        private long chatId;
+        private long messageChatId;
+        private long fromId;
+        private String text;
+
+        /**
+         * 優先使用所屬聊天室，其次是附帶訊息的聊天室，最後是發送者 ID
+         */
+        private long routingChatId() {
+            if (chatId != 0L) {
+                return chatId;
+            }
+            return messageChatId != 0L ? messageChatId : fromId;
+        }
+    }
+}
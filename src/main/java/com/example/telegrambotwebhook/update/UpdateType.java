@@ -0,0 +1,61 @@
+package com.example.telegrambotwebhook.update;
+
+import java.util.Map;
+
+/**
+ * Telegram 更新的種類，對應更新 JSON 中的欄位名稱
+ */
+public enum UpdateType {
+    MESSAGE("message"),
+    EDITED_MESSAGE("edited_message"),
+    CHANNEL_POST("channel_post"),
+    EDITED_CHANNEL_POST("edited_channel_post"),
+    CALLBACK_QUERY("callback_query"),
+    INLINE_QUERY("inline_query"),
+    CHOSEN_INLINE_RESULT("chosen_inline_result"),
+    SHIPPING_QUERY("shipping_query"),
+    PRE_CHECKOUT_QUERY("pre_checkout_query"),
+    POLL("poll"),
+    POLL_ANSWER("poll_answer"),
+    MY_CHAT_MEMBER("my_chat_member"),
+    CHAT_MEMBER("chat_member"),
+    CHAT_JOIN_REQUEST("chat_join_request"),
+    UNKNOWN("");
+
+    private static final Map<String, UpdateType> BY_FIELD = Map.ofEntries(
+            Map.entry(MESSAGE.field, MESSAGE),
+            Map.entry(EDITED_MESSAGE.field, EDITED_MESSAGE),
+            Map.entry(CHANNEL_POST.field, CHANNEL_POST),
+            Map.entry(EDITED_CHANNEL_POST.field, EDITED_CHANNEL_POST),
+            Map.entry(CALLBACK_QUERY.field, CALLBACK_QUERY),
+            Map.entry(INLINE_QUERY.field, INLINE_QUERY),
+            Map.entry(CHOSEN_INLINE_RESULT.field, CHOSEN_INLINE_RESULT),
+            Map.entry(SHIPPING_QUERY.field, SHIPPING_QUERY),
+            Map.entry(PRE_CHECKOUT_QUERY.field, PRE_CHECKOUT_QUERY),
+            Map.entry(POLL.field, POLL),
+            Map.entry(POLL_ANSWER.field, POLL_ANSWER),
+            Map.entry(MY_CHAT_MEMBER.field, MY_CHAT_MEMBER),
+            Map.entry(CHAT_MEMBER.field, CHAT_MEMBER),
+            Map.entry(CHAT_JOIN_REQUEST.field, CHAT_JOIN_REQUEST)
+    );
+
+    private final String field;
+
+    UpdateType(String field) {
+        this.field = field;
+    }
+
+    /**
+     * 依更新 JSON 的欄位名稱取得種類，非更新種類的欄位回傳 null
+     */
+    static UpdateType fromField(String field) {
+        return BY_FIELD.get(field);
+    }
+
+    /**
+     * 是否為帶有 Message 內容的更新
+     */
+    public boolean isMessageLike() {
+        return this == MESSAGE || this == EDITED_MESSAGE || this == CHANNEL_POST || this == EDITED_CHANNEL_POST;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.telegrambotwebhook.util;
+
+/**
+ * 權杖桶限流器，依固定速率補充權杖，容量決定允許的瞬間突發量
+ * <p>
+ * 非執行緒安全，呼叫端需自行確保只由單一執行緒存取
+ */
+public final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param capacity 桶的容量
+     * @param tokensPerSecond 每秒補充的權杖數量
+     * @param nowNanos 目前時間（System.nanoTime）
+     */
+    public TokenBucket(double capacity, double tokensPerSecond, long nowNanos) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * 距離下一個權杖可用還需等待的時間
+     *
+     * @param nowNanos 目前時間（System.nanoTime）
+     * @return 需等待的奈秒數，可立即取得時回傳 0
+     */
+    public long delayNanos(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1d) {
+            return 0L;
+        }
+        return (long) Math.ceil((1d - tokens) / tokensPerNano);
+    }
+
+    /**
+     * 取用一個權杖，呼叫前應先確認 {@link #delayNanos(long)} 為 0
+     *
+     * @param nowNanos 目前時間（System.nanoTime）
+     */
+    public void consume(long nowNanos) {
+        refill(nowNanos);
+        tokens -= 1d;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
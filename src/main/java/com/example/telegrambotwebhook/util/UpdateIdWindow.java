@@ -0,0 +1,87 @@
+package com.example.telegrambotwebhook.util;
+
+import java.util.Arrays;
+
+/**
+ * 以環狀位元集記錄最近處理過的 update_id，Telegram 的 update_id 對單一機器人遞增，
+ * 因此只需保留最高 id 往前固定範圍內的位元，查詢與標記都不配置物件
+ * <p>
+ * 非執行緒安全，呼叫端需自行同步
+ */
+public final class UpdateIdWindow {
+
+    public enum Result {
+        /**
+         * 第一次出現
+         */
+        NEW,
+        /**
+         * 已在視窗中出現過
+         */
+        DUPLICATE,
+        /**
+         * 比視窗範圍更舊，無法判斷，視為已處理
+         */
+        EXPIRED
+    }
+
+    private final long[] words;
+    private final int size;
+    private long highest = -1;
+
+    /**
+     * @param size 視窗大小，會向上取整為 2 的次方，最小 64
+     */
+    public UpdateIdWindow(int size) {
+        int bits = Math.max(64, Integer.highestOneBit(size - 1) << 1);
+        this.size = bits;
+        this.words = new long[bits >>> 6];
+    }
+
+    /**
+     * 標記 update_id 已處理
+     *
+     * @param updateId 更新 ID
+     * @return 標記前的狀態
+     */
+    public Result mark(long updateId) {
+        if (highest < 0 || updateId - highest >= size) {
+            Arrays.fill(words, 0L);
+            highest = updateId;
+        } else if (updateId > highest) {
+            for (long id = highest + 1; id <= updateId; id++) {
+                words[wordOf(id)] &= ~bitOf(id);
+            }
+            highest = updateId;
+        } else if (highest - updateId >= size) {
+            return Result.EXPIRED;
+        }
+
+        int word = wordOf(updateId);
+        long bit = bitOf(updateId);
+        if ((words[word] & bit) != 0) {
+            return Result.DUPLICATE;
+        }
+        words[word] |= bit;
+        return Result.NEW;
+    }
+
+    /**
+     * 取消標記，讓同一個 update_id 可以再次被處理
+     *
+     * @param updateId 更新 ID
+     */
+    public void unmark(long updateId) {
+        if (highest >= 0 && updateId <= highest && highest - updateId < size) {
+            words[wordOf(updateId)] &= ~bitOf(updateId);
+        }
+    }
+
+    private int wordOf(long id) {
+        return (int) ((id & (size - 1)) >>> 6);
+    }
+
+    private static long bitOf(long id) {
+        return 1L << (id & 63);
+    }
+}
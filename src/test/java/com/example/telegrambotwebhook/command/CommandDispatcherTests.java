@@ -0,0 +1,95 @@
+package com.example.telegrambotwebhook.command;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.telegrambotwebhook.update.UpdateEnvelope;
+import com.example.telegrambotwebhook.update.UpdateEnvelopeParser;
+import com.example.telegrambotwebhook.update.UpdateType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+
+class CommandDispatcherTests {
+
+    private final UpdateEnvelopeParser parser = new UpdateEnvelopeParser(new ObjectMapper());
+
+    private final CommandDispatcher dispatcher = new CommandDispatcher("my_bot",
+            List.of(command("start"), command("Help")),
+            List.of(handler(UpdateType.MESSAGE, "echo"), handler(UpdateType.CALLBACK_QUERY, "callback")));
+
+    @Test
+    void commandWithArgumentsIsRoutedToHandler() throws IOException {
+        assertThat(reply(textUpdate("/start  ref_42 extra"))).isEqualTo("start|ref_42 extra");
+        assertThat(reply(textUpdate("/help"))).isEqualTo("help|");
+    }
+
+    @Test
+    void botNameSuffixMustMatchThisBot() throws IOException {
+        assertThat(reply(textUpdate("/start@My_Bot now"))).isEqualTo("start|now");
+        assertThat(dispatcher.dispatch(parse(textUpdate("/start@other_bot now")))).isNull();
+    }
+
+    @Test
+    void unknownCommandsAndPlainTextFallBackToMessageHandler() throws IOException {
+        assertThat(reply(textUpdate("/unknown"))).isEqualTo("echo");
+        assertThat(reply(textUpdate("hello"))).isEqualTo("echo");
+    }
+
+    @Test
+    void otherUpdateTypesUseTypeHandlers() throws IOException {
+        assertThat(reply("""
+                {"update_id":2,"callback_query":{"id":"q","from":{"id":7,"is_bot":false,"first_name":"A"},\
+                "chat_instance":"c","data":"a"}}""")).isEqualTo("callback");
+        assertThat(dispatcher.dispatch(parse("""
+                {"update_id":3,"poll":{"id":"p","question":"q","options":[],"total_voter_count":0,\
+                "is_closed":false,"is_anonymous":true,"type":"regular","allows_multiple_answers":false}}""")))
+                .isNull();
+    }
+
+    private String reply(String json) throws IOException {
+        BotApiMethod<?> method = dispatcher.dispatch(parse(json));
+        return ((SendMessage) method).getText();
+    }
+
+    private UpdateEnvelope parse(String json) throws IOException {
+        return parser.parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String textUpdate(String text) {
+        return """
+                {"update_id":1,"message":{"message_id":1,"date":0,\
+                "chat":{"id":-42,"type":"group","title":"t"},"text":"%s"}}""".formatted(text);
+    }
+
+    private static CommandHandler command(String name) {
+        return new CommandHandler() {
+            @Override
+            public String getCommand() {
+                return name;
+            }
+
+            @Override
+            public BotApiMethod<?> handle(UpdateContext context) {
+                return new SendMessage(String.valueOf(context.chatId()), context.command() + "|" + context.arguments());
+            }
+        };
+    }
+
+    private static UpdateHandler handler(UpdateType type, String reply) {
+        return new UpdateHandler() {
+            @Override
+            public UpdateType getType() {
+                return type;
+            }
+
+            @Override
+            public BotApiMethod<?> handle(UpdateContext context) {
+                return new SendMessage(String.valueOf(context.chatId()), reply);
+            }
+        };
+    }
+}
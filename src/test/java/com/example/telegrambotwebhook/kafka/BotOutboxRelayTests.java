@@ -0,0 +1,149 @@
+package com.example.telegrambotwebhook.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.entity.BotOutboxEntity;
+import com.example.telegrambotwebhook.event.ClusterEvent;
+import com.example.telegrambotwebhook.repository.BotOutboxRepository;
+import com.example.telegrambotwebhook.repository.BotRepository;
+import com.example.telegrambotwebhook.service.ClusterCoordinator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+class BotOutboxRelayTests {
+
+    private final BotOutboxRepository botOutboxRepository = mock(BotOutboxRepository.class);
+    private final BotRepository botRepository = mock(BotRepository.class);
+    private final ClusterEventPublisher clusterEventPublisher = mock(ClusterEventPublisher.class);
+    private final ClusterCoordinator clusterCoordinator = mock(ClusterCoordinator.class);
+    private final BotStateReplayer botStateReplayer = mock(BotStateReplayer.class);
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<BotStateReplayer> botStateReplayerProvider = mock(ObjectProvider.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final BotOutboxRelay relay = new BotOutboxRelay(botOutboxRepository, botRepository, clusterEventPublisher,
+            clusterCoordinator, botStateReplayerProvider, new TelegramBotConfig(), transactionManager, meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        when(clusterCoordinator.isWebhookOwner()).thenReturn(true);
+        when(botStateReplayerProvider.getIfAvailable()).thenReturn(botStateReplayer);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(botOutboxRepository.lockOldest(anyInt()))
+                .thenReturn(List.of(row(1, 7, 1, false), row(2, 8, 1, false), row(3, 7, 2, true)));
+        when(botRepository.findAllById(List.of(7L, 8L))).thenReturn(List.of(bot(8)));
+    }
+
+    @Test
+    void rowsArePublishedInOutboxOrderAndDeletedAfterAck() {
+        when(clusterEventPublisher.publishBotChanges(anyList(), anyMap()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.relay();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ClusterEvent>> events = ArgumentCaptor.forClass(List.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Long, BotEntity>> bots = ArgumentCaptor.forClass(Map.class);
+        verify(clusterEventPublisher).publishBotChanges(events.capture(), bots.capture());
+        assertThat(events.getValue()).extracting(ClusterEvent::botId, ClusterEvent::version)
+                .containsExactly(tuple(7L, 1L), tuple(8L, 1L), tuple(7L, 2L));
+        // 已刪除的機器人不在目前資料中，轉送時寫入 tombstone
+        assertThat(bots.getValue()).containsOnlyKeys(8L);
+
+        verify(botOutboxRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(transactionManager).commit(any());
+        assertThat(meterRegistry.get("telegram.outbox.relayed").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void rowsAreKeptWhenPublishFails() {
+        when(clusterEventPublisher.publishBotChanges(anyList(), anyMap()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        relay.relay();
+
+        verify(botOutboxRepository, never()).deleteAllByIdInBatch(any());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        assertThat(meterRegistry.get("telegram.outbox.failures").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("telegram.outbox.relayed").counter().count()).isZero();
+    }
+
+    @Test
+    void emptyBotStateTopicIsSeededBeforeRelaying() {
+        List<BotEntity> enabled = List.of(bot(8));
+        when(botStateReplayer.isEmpty()).thenReturn(true);
+        when(botRepository.findByEnableTrue()).thenReturn(enabled);
+        when(botStateReplayer.seed(enabled)).thenReturn(true);
+        when(clusterEventPublisher.publishBotChanges(anyList(), anyMap()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.relay();
+        relay.relay();
+
+        // 初始狀態寫在轉送的狀態之前，之後不再檢查主題
+        InOrder order = inOrder(botStateReplayer, clusterEventPublisher);
+        order.verify(botStateReplayer).seed(enabled);
+        order.verify(clusterEventPublisher, times(2)).publishBotChanges(anyList(), anyMap());
+        verify(botStateReplayer).isEmpty();
+        verify(botStateReplayer).seed(enabled);
+    }
+
+    @Test
+    void onlyWebhookOwnerRelays() {
+        when(clusterCoordinator.isWebhookOwner()).thenReturn(false);
+
+        relay.relay();
+
+        verifyNoInteractions(botOutboxRepository, clusterEventPublisher, botStateReplayer, transactionManager);
+    }
+
+    private static BotOutboxEntity row(long id, long botId, long version, boolean deleted) {
+        return BotOutboxEntity.builder()
+                .id(id)
+                .botId(botId)
+                .oldUsername("bot" + botId)
+                .username("bot" + botId)
+                .version(version)
+                .deleted(deleted)
+                .origin("node-1")
+                .createdAt(Instant.EPOCH)
+                .build();
+    }
+
+    private static BotEntity bot(long id) {
+        return BotEntity.builder()
+                .id(id)
+                .username("bot" + id)
+                .token("token")
+                .enable(true)
+                .version(1L)
+                .build();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.telegrambotwebhook.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.telegrambotwebhook.routing.BotRoute;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class BotStateCodecTests {
+
+    @Test
+    void routeSurvivesRoundTrip() {
+        BotRoute route = new BotRoute(42L, "some_bot", "42:secret", "start,echo", 7L);
+
+        assertThat(BotStateCodec.decode(BotStateCodec.encode(route))).isEqualTo(route);
+    }
+
+    @Test
+    void missingCommandsAreKept() {
+        BotRoute route = new BotRoute(3L, "other_bot", "3:secret", null, 0L);
+
+        assertThat(BotStateCodec.decode(BotStateCodec.encode(route)).commands()).isNull();
+    }
+
+    @Test
+    void truncatedOrUnknownPayloadIsRejected() {
+        byte[] payload = BotStateCodec.encode(new BotRoute(5L, "bot", "5:secret", null, 1L));
+
+        assertThatThrownBy(() -> BotStateCodec.decode(Arrays.copyOf(payload, 12)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BotStateCodec.decode(new byte[]{9, 0, 0}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.telegrambotwebhook.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.telegrambotwebhook.event.BotChangeEvent;
+import com.example.telegrambotwebhook.event.ClusterEvent;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class ClusterEventCodecTests {
+
+    @Test
+    void botChangeSurvivesRoundTrip() {
+        ClusterEvent event = ClusterEvent.botChanged(
+                new BotChangeEvent(42L, "old_bot", "new_bot", 7L, true), "node-a");
+
+        ClusterEvent decoded = ClusterEventCodec.decode(ClusterEventCodec.encode(event));
+
+        assertThat(decoded).isEqualTo(event);
+        assertThat(decoded.toBotChangeEvent()).isEqualTo(new BotChangeEvent(42L, "old_bot", "new_bot", 7L, true));
+        assertThat(decoded.key()).isEqualTo("42");
+    }
+
+    @Test
+    void missingUsernamesAndBotIdAreKept() {
+        ClusterEvent event = ClusterEvent.cacheCleared("node-b");
+
+        ClusterEvent decoded = ClusterEventCodec.decode(ClusterEventCodec.encode(event));
+
+        assertThat(decoded).isEqualTo(event);
+        assertThat(decoded.username()).isNull();
+        assertThat(decoded.key()).isNull();
+    }
+
+    @Test
+    void trailingFieldsFromNewerNodesAreIgnored() {
+        byte[] payload = ClusterEventCodec.encode(ClusterEvent.webhookRegistered(3L, "some_bot", "node-c"));
+        byte[] extended = Arrays.copyOf(payload, payload.length + 4);
+
+        assertThat(ClusterEventCodec.decode(extended).username()).isEqualTo("some_bot");
+    }
+
+    @Test
+    void truncatedOrUnknownPayloadIsRejected() {
+        byte[] payload = ClusterEventCodec.encode(ClusterEvent.cacheCleared("node-d"));
+
+        assertThatThrownBy(() -> ClusterEventCodec.decode(Arrays.copyOf(payload, 10)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ClusterEventCodec.decode(new byte[]{9, 1, 0}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
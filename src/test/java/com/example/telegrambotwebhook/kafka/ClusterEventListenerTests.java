@@ -0,0 +1,81 @@
+package com.example.telegrambotwebhook.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.telegrambotwebhook.event.BotChangeEvent;
+import com.example.telegrambotwebhook.event.ClusterEvent;
+import com.example.telegrambotwebhook.service.BotRoutingTable;
+import com.example.telegrambotwebhook.service.BotService;
+import com.example.telegrambotwebhook.service.ClusterCoordinator;
+import com.example.telegrambotwebhook.service.TelegramBotRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+class ClusterEventListenerTests {
+
+    private final ClusterEventHandler handler = mock(ClusterEventHandler.class);
+    private final ClusterCoordinator clusterCoordinator = mock(ClusterCoordinator.class);
+    private final BotService botService = mock(BotService.class);
+    private final BotRoutingTable botRoutingTable = mock(BotRoutingTable.class);
+    private final TelegramBotRegistry telegramBotRegistry = mock(TelegramBotRegistry.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ClusterEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        when(handler.getType()).thenReturn(ClusterEvent.Type.BOT_CHANGED);
+        when(clusterCoordinator.getNodeId()).thenReturn("node-1");
+        listener = new ClusterEventListener(List.of(handler), clusterCoordinator, botService, botRoutingTable,
+                telegramBotRegistry, meterRegistry, "cluster");
+    }
+
+    @Test
+    void ownEventsAreSkipped() {
+        listener.onEvents(List.of(record(1, "node-1"), record(2, "node-2")));
+
+        verify(handler).handle(List.of(event(2, "node-2")));
+        verify(botRoutingTable, never()).reload();
+    }
+
+    @Test
+    void failedHandlerFallsBackToFullReload() {
+        doThrow(new IllegalStateException("boom")).when(handler).handle(anyList());
+
+        listener.onEvents(List.of(record(1, "node-2")));
+
+        verify(botService).evictAllBotCache();
+        verify(botRoutingTable).reload();
+        verify(telegramBotRegistry).clear();
+        assertThat(meterRegistry.get("telegram.cluster.events").tag("outcome", "failed").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void failedReloadIsRethrownForRetry() {
+        doThrow(new IllegalStateException("boom")).when(handler).handle(anyList());
+        doThrow(new DataAccessResourceFailureException("database down")).when(botRoutingTable).reload();
+
+        assertThatThrownBy(() -> listener.onEvents(List.of(record(1, "node-2"))))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    private static ConsumerRecord<String, byte[]> record(long botId, String origin) {
+        return new ConsumerRecord<>("cluster-events", 0, botId, String.valueOf(botId),
+                ClusterEventCodec.encode(event(botId, origin)));
+    }
+
+    private static ClusterEvent event(long botId, String origin) {
+        return ClusterEvent.botChanged(new BotChangeEvent(botId, "bot" + botId, "bot" + botId, 1L, false), origin);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.telegrambotwebhook.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.example.telegrambotwebhook.config.KafkaConfig;
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.repository.ProcessedUpdateRepository;
+import com.example.telegrambotwebhook.service.MessageHandlerService;
+import com.example.telegrambotwebhook.service.impl.UpdateDeduplicatorImpl;
+import com.example.telegrambotwebhook.update.UpdateEnvelope;
+import com.example.telegrambotwebhook.update.UpdateEnvelopeParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 2, topics = "bot-update-ingest",
+        bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+@TestPropertySource(properties = {
+        "telegram-bot.ingestion.mode=kafka",
+        "spring.kafka.consumer.group-id=test-group",
+        "kafka.topic.update-ingest=bot-update-ingest",
+        "kafka.update-ingest.group-id=test-update-group",
+        "kafka.update-ingest.partitions=2",
+        "kafka.update-ingest.concurrency=2",
+        "kafka.update-ingest.max-poll-records=50",
+        "kafka.update-ingest.publish-timeout-ms=10000",
+        "kafka.topic.cluster-event=bot-cluster-event",
+        "kafka.cluster-event.partitions=2",
+        "kafka.cluster-event.linger-ms=5",
+        "kafka.cluster-event.max-poll-records=500",
+        "kafka.topic.bot-state=bot-state",
+        "kafka.bot-state.partitions=2"
+})
+class UpdateIngestionKafkaTests {
+
+    @Configuration
+    @EnableKafka
+    @Import({KafkaConfig.class, UpdateIngestionProducer.class, UpdateIngestionListener.class,
+            UpdateEnvelopeParser.class, UpdateDeduplicatorImpl.class})
+    static class TestConfig {
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        TelegramBotConfig telegramBotConfig() {
+            return new TelegramBotConfig();
+        }
+    }
+
+    @MockitoBean
+    private MessageHandlerService messageHandlerService;
+
+    @MockitoBean
+    private ProcessedUpdateRepository processedUpdateRepository;
+
+    @Autowired
+    private UpdateIngestionProducer updateIngestionProducer;
+
+    @Test
+    void updatesOfOneChatAreProcessedInPublishOrder() {
+        for (int updateId = 1; updateId <= 5; updateId++) {
+            assertThat(updateIngestionProducer.publish("test_bot", 42L, updateJson(updateId, 42L))).isTrue();
+        }
+
+        ArgumentCaptor<UpdateEnvelope> captor = ArgumentCaptor.forClass(UpdateEnvelope.class);
+        verify(messageHandlerService, timeout(30_000).times(5))
+                .processUpdateAndReply(eq("test_bot"), captor.capture());
+
+        assertThat(captor.getAllValues())
+                .extracting(UpdateEnvelope::getUpdateId)
+                .containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void redeliveredUpdatesAreProcessedOnce() {
+        for (int updateId : new int[]{1, 2, 2, 3, 1, 4}) {
+            assertThat(updateIngestionProducer.publish("dedup_bot", 7L, updateJson(updateId, 7L))).isTrue();
+        }
+
+        ArgumentCaptor<UpdateEnvelope> captor = ArgumentCaptor.forClass(UpdateEnvelope.class);
+        verify(messageHandlerService, timeout(30_000).times(4))
+                .processUpdateAndReply(eq("dedup_bot"), captor.capture());
+
+        assertThat(captor.getAllValues())
+                .extracting(UpdateEnvelope::getUpdateId)
+                .containsExactly(1, 2, 3, 4);
+    }
+
+    private static byte[] updateJson(int updateId, long chatId) {
+        String json = """
+                {"update_id":%d,"message":{"message_id":%d,"date":0,\
+                "chat":{"id":%d,"type":"private"},"text":"hello %d"}}
+                """.formatted(updateId, updateId, chatId, updateId);
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.telegrambotwebhook.dto.BotVersion;
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.event.BotChangeEvent;
+import com.example.telegrambotwebhook.kafka.BotStateReplayer;
+import com.example.telegrambotwebhook.repository.BotRepository;
+import com.example.telegrambotwebhook.routing.BotRoute;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+class BotRoutingTableImplTests {
+
+    private final BotRepository botRepository = mock(BotRepository.class);
+
+    @SuppressWarnings("unchecked")
+    private final BotRoutingTableImpl table = new BotRoutingTableImpl(botRepository,
+            mock(ObjectProvider.class), new SimpleMeterRegistry());
+
+    @Test
+    void eachBatchPublishesOneNewSnapshot() {
+        assertThat(table.getGeneration()).isZero();
+
+        table.upsertAll(List.of(bot(1, "a", 1, "t1"), bot(2, "b", 1, "t1")));
+
+        assertThat(table.getGeneration()).isEqualTo(1);
+        assertThat(table.size()).isEqualTo(2);
+        assertThat(table.lookup("a").id()).isEqualTo(1L);
+        assertThat(table.getLastAppliedAt()).isNotNull();
+    }
+
+    @Test
+    void olderVersionsDoNotReplaceNewerRoutes() {
+        table.upsert(bot(1, "a", 3, "t3"));
+        long generation = table.getGeneration();
+
+        table.upsert(bot(1, "a", 2, "t2"));
+
+        assertThat(table.lookup("a").token()).isEqualTo("t3");
+        assertThat(table.getGeneration()).isEqualTo(generation);
+    }
+
+    @Test
+    void renameAndDisableReplaceRouteByBotId() {
+        table.upsert(bot(1, "a", 1, "t1"));
+
+        table.upsert(bot(1, "a2", 2, "t1"));
+        assertThat(table.lookup("a")).isNull();
+        assertThat(table.lookup("a2").version()).isEqualTo(2);
+
+        BotEntity disabled = bot(1, "a2", 3, "t1");
+        disabled.setEnable(false);
+        table.upsert(disabled);
+        assertThat(table.lookup("a2")).isNull();
+        assertThat(table.size()).isZero();
+    }
+
+    @Test
+    void staleEventsAreSkippedWithoutQueryingDatabase() {
+        table.upsert(bot(1, "a", 3, "t3"));
+        long generation = table.getGeneration();
+
+        table.apply(new BotChangeEvent(1L, "a", "a", 3L, false));
+        table.apply(new BotChangeEvent(1L, "a", "a", 2L, false));
+
+        verify(botRepository, never()).findAllById(any());
+        assertThat(table.getGeneration()).isEqualTo(generation);
+    }
+
+    @Test
+    void newerEventsReloadBotsFromDatabase() {
+        table.upsertAll(List.of(bot(1, "a", 3, "t3"), bot(2, "b", 1, "t1")));
+        when(botRepository.findAllById(List.of(1L, 3L))).thenReturn(List.of(bot(1, "a", 4, "t4")));
+
+        // 3 號機器人已不在資料庫中，2 號已刪除
+        table.applyAll(List.of(new BotChangeEvent(1L, "a", "a", 4L, false),
+                new BotChangeEvent(2L, "b", "b", 2L, true),
+                new BotChangeEvent(3L, null, "c", 1L, false)));
+
+        assertThat(table.lookup("a").token()).isEqualTo("t4");
+        assertThat(table.lookup("b")).isNull();
+        assertThat(table.lookup("c")).isNull();
+        assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    void savedBotsAreAppliedWithoutQueryingDatabase() {
+        table.upsert(bot(1, "a", 1, "t1"));
+        BotEntity disabled = bot(1, "a", 2, "t1");
+        disabled.setEnable(false);
+
+        table.applyAll(List.of(new BotChangeEvent(1L, "a", "a", 2L, false),
+                new BotChangeEvent(2L, null, "b", 1L, false)), List.of(disabled, bot(2, "b", 1, "t2")));
+
+        verify(botRepository, never()).findAllById(any());
+        assertThat(table.lookup("a")).isNull();
+        assertThat(table.lookup("b").token()).isEqualTo("t2");
+    }
+
+    @Test
+    void replayMatchingDatabaseIsUsedAtStartup() {
+        BotRoutingTableImpl replayed = replayedTable(List.of(BotRoute.of(bot(1, "a", 2, "t2"))));
+        when(botRepository.findEnabledVersions()).thenReturn(List.of(new BotVersion(1L, 2L)));
+
+        replayed.start();
+
+        assertThat(replayed.lookup("a").token()).isEqualTo("t2");
+        verify(botRepository, never()).findByEnableTrue();
+    }
+
+    @Test
+    void replayBehindDatabaseFallsBackToDatabase() {
+        // 主題只寫入了部分機器人
+        BotRoutingTableImpl replayed = replayedTable(List.of(BotRoute.of(bot(1, "a", 2, "t2"))));
+        when(botRepository.findEnabledVersions()).thenReturn(List.of(new BotVersion(1L, 2L), new BotVersion(2L, 1L)));
+        when(botRepository.findByEnableTrue()).thenReturn(List.of(bot(1, "a", 2, "t2"), bot(2, "b", 1, "t1")));
+
+        replayed.start();
+
+        assertThat(replayed.size()).isEqualTo(2);
+        assertThat(replayed.lookup("b")).isNotNull();
+    }
+
+    @Test
+    void staleBotInReplayFallsBackToDatabase() {
+        // 數量與最大版本號相同，但 1 號機器人的狀態落後資料庫
+        BotRoutingTableImpl replayed = replayedTable(List.of(
+                BotRoute.of(bot(1, "a", 1, "t1")), BotRoute.of(bot(2, "b", 3, "t3"))));
+        when(botRepository.findEnabledVersions()).thenReturn(List.of(new BotVersion(1L, 2L), new BotVersion(2L, 3L)));
+        when(botRepository.findByEnableTrue()).thenReturn(List.of(bot(1, "a", 2, "t2"), bot(2, "b", 3, "t3")));
+
+        replayed.start();
+
+        assertThat(replayed.lookup("a").token()).isEqualTo("t2");
+    }
+
+    @SuppressWarnings("unchecked")
+    private BotRoutingTableImpl replayedTable(List<BotRoute> routes) {
+        BotStateReplayer replayer = mock(BotStateReplayer.class);
+        when(replayer.replay()).thenReturn(Optional.of(routes));
+        ObjectProvider<BotStateReplayer> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(replayer);
+        return new BotRoutingTableImpl(botRepository, provider, new SimpleMeterRegistry());
+    }
+
+    private static BotEntity bot(long id, String username, long version, String token) {
+        return BotEntity.builder()
+                .id(id)
+                .username(username)
+                .token(token)
+                .enable(true)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.metrics.BotMetricTags;
+import com.example.telegrambotwebhook.service.TelegramBot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.ApiResponse;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+class OutboundMessageSchedulerImplTests {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Call> calls = Collections.synchronizedList(new ArrayList<>());
+    private OutboundMessageSchedulerImpl scheduler;
+
+    @AfterEach
+    void stopScheduler() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    void chatRateLimitSpacesSendsPerChat() throws Exception {
+        scheduler = scheduler(5);
+        TelegramBot bot = bot(method -> CompletableFuture.completedFuture(null));
+
+        scheduler.submit(bot, 1, message(1, "a1"));
+        scheduler.submit(bot, 1, message(1, "a2"));
+        scheduler.submit(bot, 1, message(1, "a3"));
+        scheduler.submit(bot, 2, message(2, "b1"));
+
+        awaitSent(4);
+        List<Call> chat1 = calls.stream().filter(call -> call.text().startsWith("a")).toList();
+        assertThat(chat1).extracting(Call::text).containsExactly("a1", "a2", "a3");
+        // 每秒 5 則，同一聊天室每則至少間隔 200 毫秒
+        for (int i = 1; i < chat1.size(); i++) {
+            assertThat(chat1.get(i).atNanos() - chat1.get(i - 1).atNanos())
+                    .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(190));
+        }
+        // 其他聊天室不受影響
+        assertThat(call("b1").atNanos() - call("a1").atNanos()).isLessThan(TimeUnit.MILLISECONDS.toNanos(150));
+        assertThat(scheduler.getTotalBacklog()).isZero();
+    }
+
+    @Test
+    void retryAfterPausesBotAndHoldsLaterSendsOfChat() throws Exception {
+        scheduler = scheduler(1000);
+        TelegramApiRequestException tooManyRequests = apiError("""
+                {"ok":false,"error_code":429,"description":"Too Many Requests: retry after 1",\
+                "parameters":{"retry_after":1}}""");
+        // 回應晚於下一則的排程時間抵達，下一則仍須等待
+        TelegramBot bot = bot(method -> "first".equals(method.getText()) && calls.size() == 1
+                ? failLater(tooManyRequests)
+                : CompletableFuture.completedFuture(null));
+
+        scheduler.submit(bot, 1, message(1, "first"));
+        scheduler.submit(bot, 1, message(1, "second"));
+
+        awaitSent(2);
+        assertThat(calls).extracting(Call::text).containsExactly("first", "first", "second");
+        assertThat(calls.get(1).atNanos() - calls.get(0).atNanos())
+                .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(950));
+        assertThat(meterRegistry.get("telegram.outbound.retried").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() throws Exception {
+        scheduler = scheduler(1000);
+        TelegramApiRequestException badRequest = apiError("""
+                {"ok":false,"error_code":400,"description":"Bad Request: chat not found"}""");
+        TelegramBot bot = bot(method -> "first".equals(method.getText())
+                ? CompletableFuture.failedFuture(badRequest)
+                : CompletableFuture.completedFuture(null));
+
+        scheduler.submit(bot, 1, message(1, "first"));
+        scheduler.submit(bot, 1, message(1, "second"));
+
+        awaitSent(1);
+        assertThat(calls).extracting(Call::text).containsExactly("first", "second");
+        assertThat(meterRegistry.get("telegram.outbound.failed").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("telegram.outbound.retried").counter().count()).isZero();
+    }
+
+    @Test
+    void backlogOverCapsIsRejected() throws Exception {
+        scheduler = scheduler(1000, 2, 3);
+        CompletableFuture<Object> response = new CompletableFuture<>();
+        TelegramBot bot = bot(method -> response);
+
+        assertThat(scheduler.submit(bot, 1, message(1, "a1"))).isTrue();
+        assertThat(scheduler.submit(bot, 1, message(1, "a2"))).isTrue();
+        assertThat(scheduler.submit(bot, 1, message(1, "a3"))).isFalse();
+        assertThat(scheduler.submit(bot, 2, message(2, "b1"))).isTrue();
+        assertThat(scheduler.submit(bot, 3, message(3, "c1"))).isFalse();
+
+        assertThat(scheduler.getTotalBacklog()).isEqualTo(3);
+        assertThat(meterRegistry.get("telegram.outbound.rejected").tag("reason", "chat").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("telegram.outbound.rejected").tag("reason", "total").counter().count())
+                .isEqualTo(1);
+
+        response.complete(null);
+        awaitSent(3);
+        assertThat(calls).extracting(Call::text).containsExactlyInAnyOrder("a1", "a2", "b1");
+    }
+
+    private OutboundMessageSchedulerImpl scheduler(double perChatPerSecond) {
+        return scheduler(perChatPerSecond, 100, 100000);
+    }
+
+    private OutboundMessageSchedulerImpl scheduler(double perChatPerSecond, int maxBacklogPerChat, int maxBacklog) {
+        TelegramBotConfig config = new TelegramBotConfig();
+        config.getOutbound().setMaxBacklogPerChat(maxBacklogPerChat);
+        config.getOutbound().setMaxBacklog(maxBacklog);
+        config.getOutbound().setPerBotPerSecond(1000);
+        config.getOutbound().setPerChatPerSecond(perChatPerSecond);
+        config.getOutbound().setRetryBackoffMs(50);
+        config.getShutdown().setDrainTimeoutMs(5000);
+        return new OutboundMessageSchedulerImpl(config, meterRegistry, new BotMetricTags(config));
+    }
+
+    @SuppressWarnings("unchecked")
+    private TelegramBot bot(Function<SendMessage, CompletableFuture<?>> responder) {
+        TelegramBot bot = mock(TelegramBot.class);
+        when(bot.getBotUsername()).thenReturn("my_bot");
+        when(bot.callAsync(any())).thenAnswer(invocation -> {
+            SendMessage method = invocation.getArgument(0);
+            calls.add(new Call(method.getText(), System.nanoTime()));
+            return responder.apply(method);
+        });
+        return bot;
+    }
+
+    private static CompletableFuture<?> failLater(Throwable error) {
+        CompletableFuture<?> response = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS)
+                .execute(() -> response.completeExceptionally(error));
+        return response;
+    }
+
+    private Call call(String text) {
+        return calls.stream().filter(call -> call.text().equals(text)).findFirst().orElseThrow();
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        await(() -> meterRegistry.find("telegram.outbound.sent").counter() != null
+                && meterRegistry.get("telegram.outbound.sent").counter().count() >= count
+                && scheduler.getTotalBacklog() == 0);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static SendMessage message(long chatId, String text) {
+        return new SendMessage(String.valueOf(chatId), text);
+    }
+
+    private static TelegramApiRequestException apiError(String json) throws IOException {
+        return new TelegramApiRequestException("Error sending message",
+                OBJECT_MAPPER.readValue(json, ApiResponse.class));
+    }
+
+    private record Call(String text, long atNanos) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.example.telegrambotwebhook.command.CommandDispatcherFactory;
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.entity.BotEntity;
+import com.example.telegrambotwebhook.service.TelegramBot;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+class TelegramBotRegistryImplTests {
+
+    @SuppressWarnings("unchecked")
+    private final TelegramBotRegistryImpl registry = new TelegramBotRegistryImpl(new TelegramBotConfig(),
+            new CommandDispatcherFactory(List.of(), List.of()), mock(ObjectProvider.class));
+
+    @AfterEach
+    void shutdownRegistry() {
+        registry.shutdown();
+    }
+
+    @Test
+    void refreshKeepsInstanceWhileTokenAndCommandsAreUnchanged() {
+        TelegramBot bot = registry.getBot(bot("t1", "start"));
+
+        assertThat(registry.refresh(bot("t1", "start"))).isSameAs(bot);
+        assertThat(registry.getBot(bot("t1", "start"))).isSameAs(bot);
+    }
+
+    @Test
+    void changedTokenOrCommandsReplaceInstance() {
+        TelegramBot bot = registry.getBot(bot("t1", "start"));
+
+        TelegramBot rebuilt = registry.refresh(bot("t2", "start"));
+        assertThat(rebuilt).isNotSameAs(bot);
+        assertThat(rebuilt.matches("t2", "start")).isTrue();
+
+        assertThat(registry.getBot(bot("t2", null))).isNotSameAs(rebuilt);
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removeAndClearDropInstances() {
+        registry.getBot(bot("t1", null));
+        registry.getBot(BotEntity.builder().id(2L).username("other_bot").token("t3").enable(true).build());
+
+        registry.remove("my_bot");
+        assertThat(registry.size()).isEqualTo(1);
+
+        registry.clear();
+        assertThat(registry.size()).isZero();
+    }
+
+    private static BotEntity bot(String token, String commands) {
+        return BotEntity.builder()
+                .id(1L)
+                .username("my_bot")
+                .token(token)
+                .commands(commands)
+                .enable(true)
+                .build();
+    }
+}
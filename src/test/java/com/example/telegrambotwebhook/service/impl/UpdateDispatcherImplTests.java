@@ -0,0 +1,128 @@
+package com.example.telegrambotwebhook.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.telegrambotwebhook.config.TelegramBotConfig;
+import com.example.telegrambotwebhook.service.MessageHandlerService;
+import com.example.telegrambotwebhook.update.UpdateEnvelope;
+import com.example.telegrambotwebhook.update.UpdateEnvelopeParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+
+class UpdateDispatcherImplTests {
+
+    private final UpdateEnvelopeParser parser = new UpdateEnvelopeParser(new ObjectMapper());
+
+    private UpdateDispatcherImpl dispatcher;
+
+    @AfterEach
+    void stopDispatcher() {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void updatesOfSameChatAreProcessedInOrder() throws Exception {
+        Map<Long, List<Integer>> processed = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(300);
+        dispatcher = dispatcher(4, 1000, new SimpleMeterRegistry(), (username, envelope) -> {
+            processed.computeIfAbsent(envelope.getChatId(), id -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(envelope.getUpdateId());
+            done.countDown();
+        });
+
+        for (int i = 0; i < 300; i++) {
+            assertThat(dispatcher.dispatch("my_bot", envelope(i, i % 5 + 1))).isTrue();
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(processed).hasSize(5);
+        processed.values().forEach(ids -> assertThat(ids).hasSize(60).isSorted());
+    }
+
+    @Test
+    void fullLaneRejectsUpdates() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        dispatcher = dispatcher(1, 2, meterRegistry, (username, envelope) -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertThat(dispatcher.dispatch("my_bot", envelope(1, 1))).isTrue();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        // 通道執行緒停在第一筆，佇列只能再放兩筆
+        assertThat(dispatcher.dispatch("my_bot", envelope(2, 1))).isTrue();
+        assertThat(dispatcher.dispatch("my_bot", envelope(3, 2))).isTrue();
+        assertThat(dispatcher.dispatch("my_bot", envelope(4, 3))).isFalse();
+
+        assertThat(dispatcher.getQueueDepth()).isEqualTo(2);
+        assertThat(meterRegistry.get("telegram.ingestion.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        dispatcher.stop();
+        assertThat(dispatcher.getQueueDepth()).isZero();
+        assertThat(dispatcher.dispatch("my_bot", envelope(5, 1))).isFalse();
+    }
+
+    @Test
+    void lanesStartOnlyInAsyncMode() throws Exception {
+        TelegramBotConfig config = new TelegramBotConfig();
+        config.getIngestion().setLanes(2);
+        UpdateDispatcherImpl sync = new UpdateDispatcherImpl(config, null, new SimpleMeterRegistry());
+
+        sync.start();
+
+        assertThat(sync.isRunning()).isFalse();
+        assertThat(sync.dispatch("my_bot", envelope(1, 1))).isFalse();
+    }
+
+    private static UpdateDispatcherImpl dispatcher(int lanes, int capacity, MeterRegistry meterRegistry,
+                                                   BiConsumer<String, UpdateEnvelope> handler) {
+        TelegramBotConfig config = new TelegramBotConfig();
+        config.getIngestion().setMode(TelegramBotConfig.IngestionMode.ASYNC);
+        config.getIngestion().setLanes(lanes);
+        config.getIngestion().setLaneQueueCapacity(capacity);
+        config.getShutdown().setDrainTimeoutMs(5000);
+        UpdateDispatcherImpl dispatcher = new UpdateDispatcherImpl(config, new MessageHandlerService() {
+            @Override
+            public BotApiMethod<?> processUpdate(String username, UpdateEnvelope envelope) {
+                return null;
+            }
+
+            @Override
+            public void processUpdateAndReply(String username, UpdateEnvelope envelope) {
+                handler.accept(username, envelope);
+            }
+        }, meterRegistry);
+        dispatcher.start();
+        return dispatcher;
+    }
+
+    private UpdateEnvelope envelope(int updateId, long chatId) throws IOException {
+        String json = """
+                {"update_id":%d,"message":{"message_id":%d,"date":0,\
+                "chat":{"id":%d,"type":"private"},"text":"hi"}}""".formatted(updateId, updateId, chatId);
+        return parser.parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.telegrambotwebhook.update;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class UpdateEnvelopeParserTests {
+
+    private final UpdateEnvelopeParser parser = new UpdateEnvelopeParser(new ObjectMapper());
+
+    @Test
+    void textMessageIsRoutedWithoutMaterializing() throws IOException {
+        UpdateEnvelope envelope = parse("""
+                {"update_id":10,"message":{"message_id":1,"date":0,\
+                "from":{"id":7,"is_bot":false,"first_name":"A"},\
+                "chat":{"id":-42,"type":"group","title":"t"},"text":"/start"}}""");
+
+        assertThat(envelope.getUpdateId()).isEqualTo(10);
+        assertThat(envelope.getType()).isEqualTo(UpdateType.MESSAGE);
+        assertThat(envelope.getChatId()).isEqualTo(-42L);
+        assertThat(envelope.getText()).isEqualTo("/start");
+        assertThat(envelope.hasText()).isTrue();
+        assertThat(envelope.isMaterialized()).isFalse();
+    }
+
+    @Test
+    void callbackQueryUsesMessageChatThenSender() throws IOException {
+        UpdateEnvelope withMessage = parse("""
+                {"update_id":11,"callback_query":{"id":"q","from":{"id":7,"is_bot":false,"first_name":"A"},\
+                "message":{"message_id":2,"date":0,"chat":{"id":99,"type":"private"},"text":"pick"},\
+                "chat_instance":"c","data":"a"}}""");
+        UpdateEnvelope inline = parse("""
+                {"update_id":12,"callback_query":{"id":"q","from":{"id":7,"is_bot":false,"first_name":"A"},\
+                "inline_message_id":"m","chat_instance":"c","data":"a"}}""");
+
+        assertThat(withMessage.getType()).isEqualTo(UpdateType.CALLBACK_QUERY);
+        assertThat(withMessage.getChatId()).isEqualTo(99L);
+        assertThat(withMessage.getText()).isNull();
+        assertThat(inline.getChatId()).isEqualTo(7L);
+    }
+
+    @Test
+    void fullUpdateIsMaterializedOnDemand() throws IOException {
+        UpdateEnvelope envelope = parse("""
+                {"update_id":13,"edited_message":{"message_id":3,"date":0,\
+                "chat":{"id":5,"type":"private"},"text":"edited"}}""");
+
+        assertThat(envelope.getType()).isEqualTo(UpdateType.EDITED_MESSAGE);
+        assertThat(envelope.hasText()).isFalse();
+        assertThat(envelope.getUpdate().getEditedMessage().getText()).isEqualTo("edited");
+        assertThat(envelope.isMaterialized()).isTrue();
+    }
+
+    @Test
+    void nonObjectPayloadIsRejected() {
+        assertThatThrownBy(() -> parse("[1,2,3]")).isInstanceOf(IOException.class);
+    }
+
+    private UpdateEnvelope parse(String json) throws IOException {
+        return parser.parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.telegrambotwebhook.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTests {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void delayShrinksAsTokensRefill() {
+        TokenBucket bucket = new TokenBucket(1, 2, 0);
+
+        assertThat(bucket.delayNanos(0)).isZero();
+        bucket.consume(0);
+
+        assertThat(bucket.delayNanos(0)).isCloseTo(SECOND / 2, within(1L));
+        assertThat(bucket.delayNanos(SECOND / 4)).isCloseTo(SECOND / 4, within(1L));
+        assertThat(bucket.delayNanos(SECOND / 2)).isZero();
+    }
+
+    @Test
+    void idleTimeAccumulatesUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(3, 1, 0);
+        long now = 10 * SECOND;
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.delayNanos(now)).isZero();
+            bucket.consume(now);
+        }
+        // 閒置十秒也只累積到容量上限
+        assertThat(bucket.delayNanos(now)).isCloseTo(SECOND, within(1L));
+    }
+
+    @Test
+    void slowRateWaitsForWholeToken() {
+        // 群組每分鐘 20 則
+        TokenBucket bucket = new TokenBucket(1, 20 / 60d, 0);
+
+        bucket.consume(0);
+
+        assertThat(bucket.delayNanos(0)).isCloseTo(3 * SECOND, within(1L));
+        assertThat(bucket.delayNanos(3 * SECOND)).isZero();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.telegrambotwebhook.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class UpdateIdWindowTests {
+
+    @Test
+    void outOfOrderIdsInsideWindowAreTrackedIndividually() {
+        UpdateIdWindow window = new UpdateIdWindow(64);
+
+        assertThat(window.mark(100)).isEqualTo(UpdateIdWindow.Result.NEW);
+        assertThat(window.mark(103)).isEqualTo(UpdateIdWindow.Result.NEW);
+        assertThat(window.mark(101)).isEqualTo(UpdateIdWindow.Result.NEW);
+        assertThat(window.mark(103)).isEqualTo(UpdateIdWindow.Result.DUPLICATE);
+        assertThat(window.mark(100)).isEqualTo(UpdateIdWindow.Result.DUPLICATE);
+        assertThat(window.mark(102)).isEqualTo(UpdateIdWindow.Result.NEW);
+    }
+
+    @Test
+    void slotsAreReusedWhenWindowAdvances() {
+        UpdateIdWindow window = new UpdateIdWindow(64);
+
+        window.mark(1);
+        // 1 + 64 落在同一個位元，前進時必須先清除
+        assertThat(window.mark(65)).isEqualTo(UpdateIdWindow.Result.NEW);
+        assertThat(window.mark(1)).isEqualTo(UpdateIdWindow.Result.EXPIRED);
+        assertThat(window.mark(10_000)).isEqualTo(UpdateIdWindow.Result.NEW);
+        assertThat(window.mark(10_000 - 63)).isEqualTo(UpdateIdWindow.Result.NEW);
+    }
+
+    @Test
+    void unmarkedIdCanBeProcessedAgain() {
+        UpdateIdWindow window = new UpdateIdWindow(1000);
+
+        window.mark(5);
+        window.unmark(5);
+
+        assertThat(window.mark(5)).isEqualTo(UpdateIdWindow.Result.NEW);
+    }
+}